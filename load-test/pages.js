@@ -0,0 +1,54 @@
+// k6 load test used to compare platform and virtual threads.
+//
+//   k6 run -e SESSION_COOKIES=<id1>,<id2>,... -e VUS=1000 load-test/pages.js
+//
+// SESSION_COOKIES holds session cookie values of signed-in sessions; virtual users cycle
+// through them. The cookie is JSESSIONID by default; set SESSION_COOKIE_NAME=SESSION when
+// running with the redis-store or jdbc-store profile (Spring Session). Run once against the default build and once with
+// `-Pjava21 -Dspring-boot.run.profiles=virtual-threads`, then compare the summaries.
+import http from 'k6/http';
+import { check } from 'k6';
+import exec from 'k6/execution';
+
+export const options = {
+    vus: Number(__ENV.VUS || 1000),
+    duration: __ENV.DURATION || '2m',
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+    },
+};
+
+const baseUrl = __ENV.BASE_URL || 'http://localhost:8080';
+const cookieName = __ENV.SESSION_COOKIE_NAME || 'JSESSIONID';
+const sessions = (__ENV.SESSION_COOKIES || '').split(',').filter((id) => id.length > 0);
+const paths = (__ENV.PATHS || '/users,/sessions,/dashboard').split(',');
+
+if (sessions.length === 0) {
+    throw new Error('SESSION_COOKIES is empty; pass the cookie values of signed-in sessions');
+}
+
+function get(path, session) {
+    return http.get(`${baseUrl}${path}`, {
+        headers: { Cookie: `${cookieName}=${session}` },
+        redirects: 0,
+    });
+}
+
+// Without a valid session every request is a redirect to the login page, which would be
+// measured as a fast, successful run
+export function setup() {
+    sessions.forEach((session, i) => {
+        const res = get(paths[0], session);
+        if (res.status !== 200) {
+            exec.test.abort(`Session ${i + 1} of SESSION_COOKIES got ${res.status} for ${paths[0]}; `
+                + `is it signed in, and is ${cookieName} the right cookie name?`);
+        }
+    });
+}
+
+export default function () {
+    const session = sessions[(__VU - 1) % sessions.length];
+    const path = paths[__ITER % paths.length];
+    const res = get(path, session);
+    check(res, { 'status is 200': (r) => r.status === 200 });
+}
@@ -0,0 +1,147 @@
+package com.example.scalekit.benchmark;
+
+import com.example.scalekit.service.LocalAccessTokenValidator;
+import com.example.scalekit.service.SessionManagementService;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.scalekit.ScalekitClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.client.InMemoryOAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.InMemoryClientRegistrationRepository;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory stand-ins for the Scalekit provider: a signed access token, an OIDC principal
+ * and an authorized client service holding one logged-in user
+ */
+final class BenchmarkFixtures {
+
+    static final String REGISTRATION_ID = "scalekit";
+
+    static final String ISSUER = "https://bench.scalekit.dev";
+
+    static final String SUBJECT = "usr_1234567890";
+
+    private BenchmarkFixtures() {
+    }
+
+    static RSAKey signingKey() throws Exception {
+        return new RSAKeyGenerator(2048).keyID("bench-key").generate();
+    }
+
+    static String accessToken(RSAKey signingKey, Instant issuedAt) throws Exception {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer(ISSUER)
+                .subject(SUBJECT)
+                .audience("bench-client-id")
+                .issueTime(Date.from(issuedAt))
+                .expirationTime(Date.from(issuedAt.plus(Duration.ofHours(1))))
+                .claim("email", "bench.user@example.com")
+                .claim("name", "Bench User")
+                .claim("sid", "ses_1234567890")
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(signingKey.getKeyID()).build(),
+                claims);
+        jwt.sign(new RSASSASigner(signingKey));
+        return jwt.serialize();
+    }
+
+    static OidcUser oidcUser(Instant issuedAt) {
+        Map<String, Object> claims = Map.ofEntries(
+                Map.entry("iss", ISSUER),
+                Map.entry("sub", SUBJECT),
+                Map.entry("aud", List.of("bench-client-id")),
+                Map.entry("iat", issuedAt),
+                Map.entry("exp", issuedAt.plus(Duration.ofHours(1))),
+                Map.entry("auth_time", issuedAt),
+                Map.entry("sid", "ses_1234567890"),
+                Map.entry("name", "Bench User"),
+                Map.entry("given_name", "Bench"),
+                Map.entry("family_name", "User"),
+                Map.entry("email", "bench.user@example.com"),
+                Map.entry("email_verified", true));
+        OidcIdToken idToken = new OidcIdToken("id-token-value", issuedAt, issuedAt.plus(Duration.ofHours(1)), claims);
+        return new DefaultOidcUser(Set.of(new SimpleGrantedAuthority("ROLE_USER")), idToken);
+    }
+
+    static OAuth2AuthenticationToken authentication(OidcUser oidcUser) {
+        return new OAuth2AuthenticationToken(oidcUser, oidcUser.getAuthorities(), REGISTRATION_ID);
+    }
+
+    /**
+     * Authorized client service holding the principal's tokens, as after a real login
+     */
+    static OAuth2AuthorizedClientService authorizedClientService(OAuth2AuthenticationToken authentication,
+                                                                 String accessToken, Instant issuedAt) {
+        ClientRegistration registration = ClientRegistration.withRegistrationId(REGISTRATION_ID)
+                .clientId("bench-client-id")
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .redirectUri("{baseUrl}/auth/callback")
+                .authorizationUri(ISSUER + "/oauth/authorize")
+                .tokenUri(ISSUER + "/oauth/token")
+                .jwkSetUri(ISSUER + "/keys")
+                .issuerUri(ISSUER)
+                .scope("openid", "profile", "email", "offline_access")
+                .build();
+        InMemoryOAuth2AuthorizedClientService service =
+                new InMemoryOAuth2AuthorizedClientService(new InMemoryClientRegistrationRepository(registration));
+
+        OAuth2AccessToken token = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, accessToken,
+                issuedAt, issuedAt.plus(Duration.ofHours(1)), registration.getScopes());
+        OAuth2RefreshToken refreshToken = new OAuth2RefreshToken("refresh-token-value", issuedAt);
+        service.saveAuthorizedClient(
+                new OAuth2AuthorizedClient(registration, authentication.getName(), token, refreshToken), authentication);
+        return service;
+    }
+
+    /**
+     * Local validator verifying against the given key instead of a remote JWK set
+     */
+    static LocalAccessTokenValidator accessTokenValidator(RSAKey signingKey) throws Exception {
+        LocalAccessTokenValidator validator = new LocalAccessTokenValidator();
+        ReflectionTestUtils.setField(validator, "jwtDecoder",
+                NimbusJwtDecoder.withPublicKey(signingKey.toRSAPublicKey()).build());
+        ReflectionTestUtils.setField(validator, "maxCachedTokens", 10_000);
+        ReflectionTestUtils.invokeMethod(validator, "initTokenCache");
+        return validator;
+    }
+
+    /**
+     * Session service wired for local token validation; the stubbed SDK client is never called on this path
+     */
+    static SessionManagementService sessionManagementService(OAuth2AuthorizedClientService authorizedClientService,
+                                                             LocalAccessTokenValidator accessTokenValidator) {
+        SessionManagementService service = new SessionManagementService();
+        ReflectionTestUtils.setField(service, "authorizedClientService", authorizedClientService);
+        ReflectionTestUtils.setField(service, "scalekitClient", Mockito.mock(ScalekitClient.class));
+        ReflectionTestUtils.setField(service, "accessTokenValidator", accessTokenValidator);
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "localTokenValidation", true);
+        return service;
+    }
+}
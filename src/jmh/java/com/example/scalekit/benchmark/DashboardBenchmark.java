@@ -0,0 +1,53 @@
+package com.example.scalekit.benchmark;
+
+import com.example.scalekit.controller.DashboardController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.ui.ExtendedModelMap;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of the OIDC principal onto the dashboard model, without template rendering
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DashboardBenchmark {
+
+    private final DashboardController dashboardController = new DashboardController();
+
+    private OidcUser oidcUser;
+
+    @Setup
+    public void setUp() {
+        oidcUser = BenchmarkFixtures.oidcUser(Instant.now());
+    }
+
+    @Benchmark
+    public ExtendedModelMap oidcPrincipal() {
+        ExtendedModelMap model = new ExtendedModelMap();
+        dashboardController.dashboard(oidcUser, model);
+        return model;
+    }
+
+    @Benchmark
+    public ExtendedModelMap demoMode() {
+        ExtendedModelMap model = new ExtendedModelMap();
+        dashboardController.dashboard(null, model);
+        return model;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.scalekit.benchmark;
+
+import com.example.scalekit.security.CompactOidcUser;
+import org.openjdk.jol.info.GraphLayout;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.OidcUserInfo;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.security.oauth2.core.oidc.user.OidcUserAuthority;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.net.URL;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Heap and serialized size of the session principal, as built by the default
+ * OidcUserService versus {@link CompactOidcUser}. Sizes are measured over many
+ * principals at once, so strings shared between sessions are counted only once:
+ *
+ * mvn -Pbenchmarks test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.scalekit.benchmark.SessionFootprint
+ */
+public final class SessionFootprint {
+
+    private static final int SESSIONS = 10_000;
+
+    private SessionFootprint() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<OAuth2AuthenticationToken> defaultPrincipals = new ArrayList<>(SESSIONS);
+        List<OAuth2AuthenticationToken> compactPrincipals = new ArrayList<>(SESSIONS);
+        Instant issuedAt = Instant.now();
+        for (int i = 0; i < SESSIONS; i++) {
+            OidcUser oidcUser = defaultOidcUser(i, issuedAt);
+            defaultPrincipals.add(BenchmarkFixtures.authentication(oidcUser));
+            compactPrincipals.add(BenchmarkFixtures.authentication(CompactOidcUser.from(oidcUser)));
+        }
+
+        report("DefaultOidcUser", defaultPrincipals);
+        report("CompactOidcUser", compactPrincipals);
+    }
+
+    private static void report(String label, List<OAuth2AuthenticationToken> principals) throws IOException {
+        long heapBytes = GraphLayout.parseInstance(principals.toArray()).totalSize();
+        System.out.printf("%-16s heap %,8d bytes/session   serialized %,8d bytes/session%n",
+                label, heapBytes / principals.size(), serializedSize(principals.get(0)));
+    }
+
+    private static int serializedSize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.size();
+    }
+
+    /**
+     * Principal shaped like the one OidcUserService builds from a Scalekit login: ID token
+     * claims as decoded by the OIDC token decoder, user info, and an OidcUserAuthority plus
+     * scope authorities. Strings are built per user, as they would be when parsed from JSON.
+     */
+    private static OidcUser defaultOidcUser(int index, Instant issuedAt) throws Exception {
+        String subject = "usr_" + (1_000_000 + index);
+        String email = "user" + index + "@example.com";
+        Instant expiresAt = issuedAt.plus(Duration.ofHours(1));
+
+        Map<String, Object> idTokenClaims = new LinkedHashMap<>();
+        idTokenClaims.put("iss", new URL(new String(BenchmarkFixtures.ISSUER)));
+        idTokenClaims.put("sub", subject);
+        idTokenClaims.put("aud", List.of(new String("bench-client-id")));
+        idTokenClaims.put("azp", new String("bench-client-id"));
+        idTokenClaims.put("iat", issuedAt);
+        idTokenClaims.put("exp", expiresAt);
+        idTokenClaims.put("auth_time", issuedAt);
+        idTokenClaims.put("nonce", "n-" + Long.toHexString(Double.doubleToLongBits(Math.random())));
+        idTokenClaims.put("at_hash", "ah-" + Long.toHexString(Double.doubleToLongBits(Math.random())));
+        idTokenClaims.put("c_hash", "ch-" + Long.toHexString(Double.doubleToLongBits(Math.random())));
+        idTokenClaims.put("sid", "ses_" + (2_000_000 + index));
+        idTokenClaims.put("amr", List.of(new String("pwd")));
+        idTokenClaims.put("email", email);
+        idTokenClaims.put("email_verified", true);
+        idTokenClaims.put("name", "User " + index);
+        idTokenClaims.put("given_name", "User");
+        idTokenClaims.put("family_name", String.valueOf(index));
+        idTokenClaims.put("oid", new String("org_1234567890"));
+        idTokenClaims.put("xoid", new String("ext_org_1234567890"));
+        OidcIdToken idToken = new OidcIdToken("eyJhbGciOiJSUzI1NiJ9." + "x".repeat(900) + index,
+                issuedAt, expiresAt, idTokenClaims);
+
+        Map<String, Object> userInfoClaims = new LinkedHashMap<>();
+        userInfoClaims.put("sub", subject);
+        userInfoClaims.put("email", email);
+        userInfoClaims.put("email_verified", true);
+        userInfoClaims.put("name", "User " + index);
+        userInfoClaims.put("given_name", "User");
+        userInfoClaims.put("family_name", String.valueOf(index));
+        OidcUserInfo userInfo = new OidcUserInfo(userInfoClaims);
+
+        Set<GrantedAuthority> authorities = new LinkedHashSet<>();
+        authorities.add(new OidcUserAuthority(idToken, userInfo));
+        for (String scope : List.of("openid", "profile", "email", "offline_access")) {
+            authorities.add(new SimpleGrantedAuthority("SCOPE_" + scope));
+        }
+        return new DefaultOidcUser(authorities, idToken, userInfo);
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.scalekit.benchmark;
+
+import com.example.scalekit.service.SessionInfo;
+import com.example.scalekit.service.SessionManagementService;
+import com.example.scalekit.service.TokenExpiryInfo;
+import com.example.scalekit.service.TokenValidationResult;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.nimbusds.jose.jwk.RSAKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Per-request cost of the session service: each invocation runs inside a fresh request
+ * scope, as a page render or API call would
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SessionHotPathBenchmark {
+
+    private SessionManagementService sessionManagementService;
+
+    private JwtDecoder jwtDecoder;
+
+    private String accessToken;
+
+    private ObjectWriter validationResultWriter;
+
+    private TokenValidationResult validationResult;
+
+    @Setup
+    public void setUp() throws Exception {
+        Instant issuedAt = Instant.now();
+        RSAKey signingKey = BenchmarkFixtures.signingKey();
+        accessToken = BenchmarkFixtures.accessToken(signingKey, issuedAt);
+        jwtDecoder = NimbusJwtDecoder.withPublicKey(signingKey.toRSAPublicKey()).build();
+
+        OAuth2AuthenticationToken authentication =
+                BenchmarkFixtures.authentication(BenchmarkFixtures.oidcUser(issuedAt));
+        sessionManagementService = BenchmarkFixtures.sessionManagementService(
+                BenchmarkFixtures.authorizedClientService(authentication, accessToken, issuedAt),
+                BenchmarkFixtures.accessTokenValidator(signingKey));
+
+        // State is per thread, so setup runs on the thread that executes the benchmark
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        // Same ObjectMapper configuration Spring MVC uses for the JSON endpoints
+        validationResultWriter = Jackson2ObjectMapperBuilder.json().build().writerFor(TokenValidationResult.class);
+        validationResult = inRequest(sessionManagementService::validateCurrentAccessToken);
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public SessionInfo currentSessionInfo() {
+        return inRequest(sessionManagementService::getCurrentSessionInfo);
+    }
+
+    @Benchmark
+    public TokenExpiryInfo tokenExpiryInfo() {
+        return inRequest(sessionManagementService::getTokenExpiryInfo);
+    }
+
+    /**
+     * Everything the sessions page asks for within one request
+     */
+    @Benchmark
+    public void sessionsPage(Blackhole blackhole) {
+        inRequest(() -> {
+            blackhole.consume(sessionManagementService.getCurrentSessionInfo());
+            blackhole.consume(sessionManagementService.getTokenExpiryInfo());
+            blackhole.consume(sessionManagementService.isTokenExpired());
+            blackhole.consume(sessionManagementService.isTokenExpiringSoon());
+            return null;
+        });
+    }
+
+    /**
+     * Claims extraction for a token whose validation is already memoized
+     */
+    @Benchmark
+    public TokenValidationResult validateCurrentAccessToken() {
+        return inRequest(sessionManagementService::validateCurrentAccessToken);
+    }
+
+    /**
+     * JSON response body of /sessions/validate-token
+     */
+    @Benchmark
+    public byte[] validationResultJson() throws Exception {
+        return validationResultWriter.writeValueAsBytes(validationResult);
+    }
+
+    /**
+     * Full signature verification, the cost of a memo miss
+     */
+    @Benchmark
+    public Jwt decodeAccessToken() {
+        return jwtDecoder.decode(accessToken);
+    }
+
+    private static <T> T inRequest(Supplier<T> call) {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            return call.get();
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.scalekit.benchmark;
+
+import com.example.scalekit.view.FragmentCache;
+import com.google.protobuf.Timestamp;
+import com.scalekit.grpc.scalekit.v1.users.User;
+import com.scalekit.grpc.scalekit.v1.users.UserProfile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.security.web.csrf.DefaultCsrfToken;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Render latency of the users list page with the template cache on, with its rows rendered
+ * on every request versus served from the fragment cache
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TemplateRenderBenchmark {
+
+    @Param({"50"})
+    private int pageSize;
+
+    private SpringTemplateEngine templateEngine;
+
+    private JakartaServletWebApplication webApplication;
+
+    private FragmentCache renderingFragments;
+
+    private FragmentCache cachedFragments;
+
+    private List<User> users;
+
+    @Setup
+    public void setUp() {
+        ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+        templateResolver.setPrefix("templates/");
+        templateResolver.setSuffix(".html");
+        templateResolver.setTemplateMode(TemplateMode.HTML);
+        templateResolver.setCharacterEncoding("UTF-8");
+        templateResolver.setCacheable(true);
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        webApplication = JakartaServletWebApplication.buildApplication(new MockServletContext());
+
+        renderingFragments = fragmentCache(false);
+        cachedFragments = fragmentCache(true);
+
+        users = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            users.add(User.newBuilder()
+                    .setId("usr_" + i)
+                    .setEmail("user" + i + "@example.com")
+                    .setUserProfile(UserProfile.newBuilder()
+                            .setFirstName("First" + i)
+                            .setLastName("Last" + i)
+                            .setName("First" + i + " Last" + i))
+                    .setCreateTime(Timestamp.newBuilder().setSeconds(1_700_000_000L + i))
+                    .build());
+        }
+        // Fill the cache and the parsed-template cache
+        usersPageCachedRows();
+        usersPageRenderedRows();
+    }
+
+    @Benchmark
+    public Map<String, String> rowsRendered() {
+        return userRows(renderingFragments);
+    }
+
+    @Benchmark
+    public Map<String, String> rowsCached() {
+        return userRows(cachedFragments);
+    }
+
+    @Benchmark
+    public String usersPageRenderedRows() {
+        return renderUsersPage(userRows(renderingFragments));
+    }
+
+    @Benchmark
+    public String usersPageCachedRows() {
+        return renderUsersPage(userRows(cachedFragments));
+    }
+
+    /**
+     * Same rows as UserManagementController.listUsers builds
+     */
+    private Map<String, String> userRows(FragmentCache fragmentCache) {
+        Map<String, String> rows = new LinkedHashMap<>();
+        for (User user : users) {
+            rows.put(user.getId(), fragmentCache.render("fragments/user-row", "row",
+                    user.getId(), user, Map.of("user", user)));
+        }
+        return rows;
+    }
+
+    private String renderUsersPage(Map<String, String> userRows) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("users", users);
+        variables.put("userRows", userRows);
+        variables.put("hasNextPage", false);
+        variables.put("_csrf", new DefaultCsrfToken("X-CSRF-TOKEN", "_csrf", "benchmark"));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users");
+        WebContext context = new WebContext(
+                webApplication.buildExchange(request, new MockHttpServletResponse()), Locale.ENGLISH, variables);
+        return templateEngine.process("users", context);
+    }
+
+    private FragmentCache fragmentCache(boolean caching) {
+        FragmentCache fragmentCache = new FragmentCache();
+        ReflectionTestUtils.setField(fragmentCache, "templateEngine", templateEngine);
+        ReflectionTestUtils.setField(fragmentCache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(fragmentCache, "templateCache", true);
+        ReflectionTestUtils.setField(fragmentCache, "enabled", caching);
+        ReflectionTestUtils.setField(fragmentCache, "maxEntries", 10_000L);
+        ReflectionTestUtils.setField(fragmentCache, "idleTimeout", Duration.ofMinutes(30));
+        ReflectionTestUtils.invokeMethod(fragmentCache, "initCache");
+        return fragmentCache;
+    }
+}
@@ -2,11 +2,15 @@ package com.example.scalekit;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
 @SpringBootApplication
 public class ScalekitDemoApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(ScalekitDemoApplication.class, args);
+        SpringApplication application = new SpringApplication(ScalekitDemoApplication.class);
+        // Startup steps are available at /actuator/startup for comparing startup modes
+        application.setApplicationStartup(new BufferingApplicationStartup(2048));
+        application.run(args);
     }
 }
\ No newline at end of file
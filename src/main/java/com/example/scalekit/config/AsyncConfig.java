@@ -0,0 +1,108 @@
+package com.example.scalekit.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+
+    @Value("${scalekit.executor.pool-size:16}")
+    private int poolSize;
+
+    @Value("${scalekit.executor.queue-capacity:500}")
+    private int queueCapacity;
+
+    @Value("${scalekit.executor.mvc-pool-size:32}")
+    private int mvcPoolSize;
+
+    @Value("${scalekit.executor.session-pool-size:16}")
+    private int sessionPoolSize;
+
+    @Value("${scalekit.executor.sse-pool-size:4}")
+    private int ssePoolSize;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    /**
+     * Executor for Scalekit SDK calls made off the request thread
+     */
+    @Bean
+    public AsyncTaskExecutor scalekitTaskExecutor() {
+        if (virtualThreads) {
+            return virtualThreadExecutor("scalekit-");
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("scalekit-");
+        return executor;
+    }
+
+    /**
+     * Executor for async MVC handlers such as streaming exports. Kept apart from the
+     * Scalekit executor so a long-running response cannot starve the calls it waits on.
+     */
+    @Bean
+    public AsyncTaskExecutor mvcTaskExecutor() {
+        if (virtualThreads) {
+            return virtualThreadExecutor("mvc-async-");
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(mvcPoolSize);
+        executor.setMaxPoolSize(mvcPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("mvc-async-");
+        return executor;
+    }
+
+    /**
+     * Executor for the async token validation and refresh endpoints, so a burst of clicks
+     * queues here instead of holding container threads
+     */
+    @Bean
+    public AsyncTaskExecutor sessionTaskExecutor() {
+        if (virtualThreads) {
+            return virtualThreadExecutor("session-");
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(sessionPoolSize);
+        executor.setMaxPoolSize(sessionPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("session-");
+        return executor;
+    }
+
+    /**
+     * Executor that writes Server-Sent Events, so a client that stops reading stalls one of
+     * these threads instead of the shared scheduler
+     */
+    @Bean
+    public AsyncTaskExecutor sseTaskExecutor() {
+        if (virtualThreads) {
+            return virtualThreadExecutor("sse-");
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(ssePoolSize);
+        executor.setMaxPoolSize(ssePoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("sse-");
+        return executor;
+    }
+
+    /**
+     * One virtual thread per task; blocking SDK calls then park instead of pinning a platform thread
+     */
+    private static AsyncTaskExecutor virtualThreadExecutor(String threadNamePrefix) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+}
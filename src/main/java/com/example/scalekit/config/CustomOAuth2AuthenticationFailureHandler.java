@@ -1,10 +1,13 @@
 package com.example.scalekit.config;
 
+import com.example.scalekit.metrics.LoginMetricsListener;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
 import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
@@ -19,6 +22,9 @@ public class CustomOAuth2AuthenticationFailureHandler extends SimpleUrlAuthentic
 
     private static final Logger logger = LoggerFactory.getLogger(CustomOAuth2AuthenticationFailureHandler.class);
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Override
     public void onAuthenticationFailure(HttpServletRequest request, HttpServletResponse response,
                                       AuthenticationException exception) throws IOException, ServletException {
@@ -29,6 +35,7 @@ public class CustomOAuth2AuthenticationFailureHandler extends SimpleUrlAuthentic
             logger.error("OAuth2 Error Code: {}", oauth2Exception.getError().getErrorCode());
             logger.error("OAuth2 Error Description: {}", oauth2Exception.getError().getDescription());
             logger.error("OAuth2 Error URI: {}", oauth2Exception.getError().getUri());
+            countFailure(oauth2Exception.getError().getErrorCode());
 
             String errorParam = URLEncoder.encode(oauth2Exception.getError().getErrorCode(), StandardCharsets.UTF_8);
             String errorDescription = oauth2Exception.getError().getDescription() != null ?
@@ -38,8 +45,13 @@ public class CustomOAuth2AuthenticationFailureHandler extends SimpleUrlAuthentic
                 "/login?error=" + errorParam + "&description=" + errorDescription);
         } else {
             logger.error("General Authentication Exception: {}", exception.getMessage());
+            countFailure("unknown");
             getRedirectStrategy().sendRedirect(request, response,
                 "/login?error=unknown&description=" + URLEncoder.encode(exception.getMessage(), StandardCharsets.UTF_8));
         }
     }
+
+    private void countFailure(String errorCode) {
+        meterRegistry.counter(LoginMetricsListener.LOGIN_METRIC, "outcome", "failure", "error", errorCode).increment();
+    }
 }
\ No newline at end of file
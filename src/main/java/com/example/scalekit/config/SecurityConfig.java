@@ -1,16 +1,31 @@
 package com.example.scalekit.config;
 
+import com.example.scalekit.security.CompactOidcUserService;
+import com.example.scalekit.security.RevocationIndex;
+import com.example.scalekit.security.RevokedSessionFilter;
+import com.example.scalekit.service.LocalAccessTokenValidator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
 import org.springframework.security.oauth2.client.oidc.web.logout.OidcClientInitiatedLogoutSuccessHandler;
 import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
 import org.springframework.security.oauth2.client.web.OAuth2AuthorizedClientRepository;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
 import org.springframework.security.web.authentication.logout.LogoutSuccessHandler;
+import org.springframework.security.web.session.HttpSessionEventPublisher;
 
 @Configuration
 @EnableWebSecurity
@@ -19,16 +34,85 @@ public class SecurityConfig {
     @Autowired
     private CustomOAuth2AuthenticationFailureHandler customFailureHandler;
 
+    @Autowired
+    private CompactOidcUserService compactOidcUserService;
+
+    @Autowired
+    private LocalAccessTokenValidator accessTokenValidator;
+
+    @Autowired
+    private RevocationIndex revocationIndex;
+
+    @Autowired
+    private OAuth2AuthorizedClientService authorizedClientService;
+
+    @Value("${scalekit.metrics.username:prometheus}")
+    private String metricsUsername;
+
+    /** Scrape password in Spring Security's {id}-prefixed form, e.g. {bcrypt}...; unset disables scraping */
+    @Value("${scalekit.metrics.password:}")
+    private String metricsPassword;
+
+    /**
+     * Bearer-token API: access tokens are verified locally and nothing is read from or
+     * written to the HTTP session, so any node can serve any request
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain apiFilterChain(HttpSecurity http) throws Exception {
+        http
+            .securityMatcher("/api/**")
+            .authorizeHttpRequests(authz -> authz.anyRequest().authenticated())
+            .oauth2ResourceServer(oauth2 -> oauth2.jwt(jwt -> jwt.decoder(accessTokenValidator::decode)))
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .securityContext(context -> context.securityContextRepository(new RequestAttributeSecurityContextRepository()))
+            .requestCache(cache -> cache.disable())
+            .addFilterBefore(revokedSessionFilter(), AuthorizationFilter.class)
+            // No cookies are involved, so there is nothing for CSRF to forge
+            .csrf(csrf -> csrf.disable());
+
+        return http.build();
+    }
+
+    /**
+     * Actuator endpoints: health stays open for load balancers, everything else, including
+     * the Prometheus scrape, needs the metrics credentials over HTTP Basic
+     */
+    @Bean
+    @Order(2)
+    public SecurityFilterChain actuatorFilterChain(HttpSecurity http) throws Exception {
+        http
+            .securityMatcher("/actuator/**")
+            .authorizeHttpRequests(authz -> {
+                authz.requestMatchers("/actuator/health", "/actuator/health/**").permitAll();
+                if (metricsPassword.isBlank()) {
+                    authz.anyRequest().denyAll();
+                } else {
+                    authz.anyRequest().authenticated();
+                }
+            })
+            .httpBasic(basic -> basic.realmName("actuator"))
+            .authenticationManager(metricsAuthenticationManager())
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .securityContext(context -> context.securityContextRepository(new RequestAttributeSecurityContextRepository()))
+            .requestCache(cache -> cache.disable())
+            .csrf(csrf -> csrf.disable());
+
+        return http.build();
+    }
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http, ClientRegistrationRepository clientRegistrationRepository) throws Exception {
         http
         .authorizeHttpRequests(authz -> authz
-            .requestMatchers("/", "/login", "/error", "/webjars/**", "/css/**", "/js/**").permitAll()
+            .requestMatchers("/", "/login", "/error", "/vendor/**").permitAll()
+            .requestMatchers("/logout/back-channel/**").permitAll()
             .requestMatchers("/users/**", "/sessions/**").authenticated()
             .anyRequest().authenticated()
         )
             .oauth2Login(oauth2 -> oauth2
                 .loginPage("/login")
+                .userInfoEndpoint(userInfo -> userInfo.oidcUserService(compactOidcUserService))
                 .defaultSuccessUrl("/dashboard", true)
                 .failureHandler(customFailureHandler)
             )
@@ -37,11 +121,40 @@ public class SecurityConfig {
                 .logoutSuccessUrl("/")
                 .invalidateHttpSession(true)
                 .clearAuthentication(true)
-            );
+            )
+            // The provider posts logout tokens without a browser session or CSRF token
+            .csrf(csrf -> csrf.ignoringRequestMatchers("/logout/back-channel/**"))
+            .addFilterBefore(revokedSessionFilter(), AuthorizationFilter.class);
 
         return http.build();
     }
 
+    /**
+     * Publishes destroyed and expired sessions as Spring Security events, so per-principal
+     * state such as background token refresh is dropped with the session
+     */
+    @Bean
+    public HttpSessionEventPublisher httpSessionEventPublisher() {
+        return new HttpSessionEventPublisher();
+    }
+
+    private ProviderManager metricsAuthenticationManager() {
+        InMemoryUserDetailsManager users = new InMemoryUserDetailsManager();
+        if (!metricsPassword.isBlank()) {
+            users.createUser(User.withUsername(metricsUsername)
+                    .password(metricsPassword)
+                    .roles("METRICS")
+                    .build());
+        }
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(users);
+        provider.setPasswordEncoder(PasswordEncoderFactories.createDelegatingPasswordEncoder());
+        return new ProviderManager(provider);
+    }
+
+    private RevokedSessionFilter revokedSessionFilter() {
+        return new RevokedSessionFilter(revocationIndex, authorizedClientService);
+    }
 
     private LogoutSuccessHandler oidcLogoutSuccessHandler(ClientRegistrationRepository clientRegistrationRepository) {
         OidcClientInitiatedLogoutSuccessHandler oidcLogoutSuccessHandler =
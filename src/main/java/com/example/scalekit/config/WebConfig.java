@@ -0,0 +1,60 @@
+package com.example.scalekit.config;
+
+import com.example.scalekit.resilience.RequestRateLimiter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import java.time.Duration;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    @Qualifier("mvcTaskExecutor")
+    private AsyncTaskExecutor mvcTaskExecutor;
+
+    @Autowired
+    private RequestRateLimiter requestRateLimiter;
+
+    @Value("${scalekit.export.timeout:10m}")
+    private Duration asyncRequestTimeout;
+
+    @Value("${scalekit.static-assets.max-age:365d}")
+    private Duration staticAssetsMaxAge;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(mvcTaskExecutor);
+        configurer.setDefaultTimeout(asyncRequestTimeout.toMillis());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(requestRateLimiter);
+    }
+
+    /**
+     * Bundled assets are linked with a content hash in the file name (templates use @{...}
+     * URLs), so a cached copy can never go stale. The precompressed .gz variant is served
+     * to clients that accept it.
+     */
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        registry.addResourceHandler("/vendor/**")
+                .addResourceLocations("classpath:/static/vendor/")
+                .setCacheControl(CacheControl.maxAge(staticAssetsMaxAge).cachePublic().immutable())
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.scalekit.controller;
+
+import com.example.scalekit.resilience.RateLimited;
+import com.example.scalekit.resilience.ScalekitUnavailableException;
+import com.example.scalekit.service.UserImportService;
+import com.example.scalekit.service.UserIndex;
+import com.example.scalekit.service.UserService;
+import com.example.scalekit.service.UserSummary;
+import com.scalekit.grpc.scalekit.v1.users.*;
+import io.grpc.StatusRuntimeException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * JSON versions of the user management operations for machine clients, authenticated
+ * with a bearer access token instead of a session
+ */
+@Lazy
+@RestController
+@RequestMapping("/api/users")
+public class ApiUserController {
+
+    public record UserPage(List<UserSummary> users, String nextPageToken) {
+    }
+
+    public record CreateUserRequest(String email, String name, String firstName, String lastName,
+                                    String phoneNumber, boolean sendInvitationEmail) {
+    }
+
+    public record UpdateUserRequest(String name, String firstName, String lastName, String phoneNumber) {
+    }
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserIndex userIndex;
+
+    @GetMapping
+    public UserPage listUsers(
+            @RequestParam(value = "pageSize", defaultValue = "50") Integer pageSize,
+            @RequestParam(value = "pageToken", defaultValue = "") String pageToken) {
+        ListOrganizationUsersResponse response = userService.listOrganizationUsers(pageSize, pageToken);
+        return new UserPage(response.getUsersList().stream().map(UserSummary::from).toList(),
+                response.getNextPageToken().isEmpty() ? null : response.getNextPageToken());
+    }
+
+    @GetMapping("/search")
+    public UserIndex.SearchResult searchUsers(
+            @RequestParam(value = "q", defaultValue = "") String query,
+            @RequestParam(value = "status", defaultValue = "") String status,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return userIndex.search(query, status, limit);
+    }
+
+    @GetMapping("/{userId}")
+    public UserSummary getUser(@PathVariable String userId) {
+        return UserSummary.from(userService.getUser(userId).getUser());
+    }
+
+    @PostMapping
+    @RateLimited("create-user")
+    public ResponseEntity<UserSummary> createUser(@RequestBody CreateUserRequest request) {
+        if (request.email() == null || request.email().isBlank()) {
+            throw new IllegalArgumentException("email is required");
+        }
+        CreateUserProfile.Builder profile = CreateUserProfile.newBuilder();
+        if (hasText(request.name())) {
+            profile.setName(request.name());
+        }
+        if (hasText(request.firstName())) {
+            profile.setFirstName(request.firstName());
+        }
+        if (hasText(request.lastName())) {
+            profile.setLastName(request.lastName());
+        }
+        if (hasText(request.phoneNumber())) {
+            profile.setPhoneNumber(request.phoneNumber());
+        }
+        CreateUser createUser = CreateUser.newBuilder()
+                .setEmail(request.email())
+                .setUserProfile(profile.build())
+                .build();
+
+        User user = userService.createUserAndMembership(createUser, request.sendInvitationEmail()).getUser();
+        return ResponseEntity.created(URI.create("/api/users/" + user.getId())).body(UserSummary.from(user));
+    }
+
+    /**
+     * Runs on the MVC async executor; a malformed upload is answered with 400
+     */
+    @PostMapping("/import")
+    @RateLimited("import-users")
+    public Callable<UserImportService.ImportReport> importUsers(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "sendInvitationEmail", defaultValue = "false") boolean sendInvitationEmail)
+            throws IOException {
+        UserImportService.Format format = UserImportService.Format.fromFilename(file.getOriginalFilename());
+        InputStream inputStream = file.getInputStream();
+        return () -> {
+            try (inputStream) {
+                return userImportService.importUsers(inputStream, format, sendInvitationEmail);
+            }
+        };
+    }
+
+    @PatchMapping("/{userId}")
+    @RateLimited("user-write")
+    public UserSummary updateUser(@PathVariable String userId, @RequestBody UpdateUserRequest request) {
+        UpdateUserProfile.Builder profile = UpdateUserProfile.newBuilder();
+        if (hasText(request.name())) {
+            profile.setName(request.name());
+        }
+        if (hasText(request.firstName())) {
+            profile.setFirstName(request.firstName());
+        }
+        if (hasText(request.lastName())) {
+            profile.setLastName(request.lastName());
+        }
+        if (hasText(request.phoneNumber())) {
+            profile.setPhoneNumber(request.phoneNumber());
+        }
+        UpdateUser updateUser = UpdateUser.newBuilder().setUserProfile(profile.build()).build();
+        return UserSummary.from(userService.updateUser(userId, updateUser).getUser());
+    }
+
+    @DeleteMapping("/{userId}")
+    @RateLimited("user-write")
+    public ResponseEntity<Void> deleteUser(@PathVariable String userId) {
+        userService.deleteUser(userId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/{userId}/resend-invite")
+    @RateLimited("resend-invite")
+    public ResponseEntity<Void> resendInvite(@PathVariable String userId) {
+        userService.resendInvite(userId);
+        return ResponseEntity.accepted().build();
+    }
+
+    @DeleteMapping("/{userId}/membership")
+    @RateLimited("user-write")
+    public ResponseEntity<Void> deleteMembership(@PathVariable String userId) {
+        userService.deleteMembership(userId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ProblemDetail badRequest(IllegalArgumentException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+
+    @ExceptionHandler(ScalekitUnavailableException.class)
+    public ProblemDetail unavailable(ScalekitUnavailableException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+    }
+
+    /**
+     * Map the Scalekit API's gRPC status to the closest HTTP status
+     */
+    @ExceptionHandler(StatusRuntimeException.class)
+    public ProblemDetail upstreamError(StatusRuntimeException e) {
+        HttpStatus status = switch (e.getStatus().getCode()) {
+            case NOT_FOUND -> HttpStatus.NOT_FOUND;
+            case INVALID_ARGUMENT, FAILED_PRECONDITION, OUT_OF_RANGE -> HttpStatus.BAD_REQUEST;
+            case ALREADY_EXISTS, ABORTED -> HttpStatus.CONFLICT;
+            case PERMISSION_DENIED -> HttpStatus.FORBIDDEN;
+            case RESOURCE_EXHAUSTED -> HttpStatus.TOO_MANY_REQUESTS;
+            case UNAVAILABLE, DEADLINE_EXCEEDED -> HttpStatus.SERVICE_UNAVAILABLE;
+            default -> HttpStatus.BAD_GATEWAY;
+        };
+        return ProblemDetail.forStatusAndDetail(status, e.getStatus().getDescription());
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
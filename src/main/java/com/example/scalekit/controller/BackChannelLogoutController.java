@@ -0,0 +1,110 @@
+package com.example.scalekit.controller;
+
+import com.example.scalekit.security.RevocationIndex;
+import com.example.scalekit.service.LocalAccessTokenValidator;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * OpenID Connect Back-Channel Logout: the provider posts a signed logout token and the
+ * session it names (sid), or every session of the user (sub), is revoked on all nodes.
+ *
+ * Each token is accepted once per node: its jti is remembered until the token expires, after
+ * which a replay fails validation anyway.
+ */
+@Lazy
+@RestController
+public class BackChannelLogoutController {
+
+    /** The clock skew the decoder's timestamp check allows */
+    private static final Duration TIMESTAMP_CLOCK_SKEW = Duration.ofSeconds(60);
+
+    @Autowired
+    private ClientRegistrationRepository clientRegistrationRepository;
+
+    @Autowired
+    private LocalAccessTokenValidator accessTokenValidator;
+
+    @Autowired
+    private RevocationIndex revocationIndex;
+
+    @Value("${scalekit.revocation.max-logout-tokens:10000}")
+    private int maxLogoutTokens;
+
+    private Cache<String, Instant> seenLogoutTokens;
+
+    @PostConstruct
+    void initSeenLogoutTokens() {
+        seenLogoutTokens = Caffeine.newBuilder()
+                .maximumSize(maxLogoutTokens)
+                .expireAfter(Expiry.creating((String tokenId, Instant expiresAt) ->
+                        nonNegative(Duration.between(Instant.now(), expiresAt.plus(TIMESTAMP_CLOCK_SKEW)))))
+                .build();
+    }
+
+    @PostMapping(path = "/logout/back-channel/{registrationId}", consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+    public ResponseEntity<Map<String, String>> backChannelLogout(@PathVariable String registrationId,
+                                                                 @RequestParam("logout_token") String logoutToken) {
+        ClientRegistration registration = clientRegistrationRepository.findByRegistrationId(registrationId);
+        if (registration == null) {
+            return invalid("Unknown client registration");
+        }
+
+        Jwt token;
+        try {
+            // Signature, issuer, timestamps, the logout event and jti; never cached
+            token = accessTokenValidator.decodeLogoutToken(logoutToken);
+        } catch (JwtException e) {
+            return invalid(e.getMessage());
+        }
+        if (token.getAudience() == null || !token.getAudience().contains(registration.getClientId())) {
+            return invalid("Logout token is not for this client");
+        }
+        if (token.hasClaim("nonce")) {
+            return invalid("Logout tokens must not contain a nonce");
+        }
+        if (seenLogoutTokens.asMap().putIfAbsent(registrationId + ':' + token.getId(), token.getExpiresAt()) != null) {
+            return invalid("Logout token has already been used");
+        }
+
+        String sid = token.getClaimAsString("sid");
+        if (sid != null) {
+            revocationIndex.revokeSession(sid);
+        } else if (token.getSubject() != null) {
+            revocationIndex.revokeSubject(token.getSubject());
+        } else {
+            return invalid("Logout token names neither a session nor a subject");
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).build();
+    }
+
+    private static Duration nonNegative(Duration duration) {
+        return duration.isNegative() ? Duration.ZERO : duration;
+    }
+
+    private static ResponseEntity<Map<String, String>> invalid(String description) {
+        return ResponseEntity.badRequest()
+                .cacheControl(CacheControl.noStore())
+                .body(Map.of("error", "invalid_request", "error_description", description));
+    }
+}
@@ -7,8 +7,8 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 
 import java.time.Instant;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 @Controller
 public class DashboardController {
@@ -21,6 +21,7 @@ public class DashboardController {
             model.addAttribute("name", oidcUser.getFullName());
             model.addAttribute("email", oidcUser.getEmail());
             model.addAttribute("subject", oidcUser.getSubject());
+            // The session principal keeps only the claims the app uses, already sorted by name
             model.addAttribute("claims", oidcUser.getClaims());
             model.addAttribute("authorities", oidcUser.getAuthorities());
             model.addAttribute("demoMode", false);
@@ -39,7 +40,7 @@ public class DashboardController {
 
 
     private Map<String, Object> createMockClaims() {
-        Map<String, Object> claims = new HashMap<>();
+        Map<String, Object> claims = new TreeMap<>();
         long now = Instant.now().getEpochSecond();
 
         claims.put("sub", "demo-user-123");
@@ -53,9 +54,7 @@ public class DashboardController {
         claims.put("iat", now - 3600);
         claims.put("exp", now + 3600);
         claims.put("auth_time", now - 3600);
-        claims.put("organization", "Scalekit Demo Organization");
-        claims.put("department", "Engineering");
-        claims.put("role", "Developer");
+        claims.put("sid", "demo-session-123");
 
         return claims;
     }
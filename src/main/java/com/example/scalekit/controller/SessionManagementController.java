@@ -1,18 +1,39 @@
 package com.example.scalekit.controller;
 
+import com.example.scalekit.resilience.RateLimited;
+import com.example.scalekit.service.SessionEventPublisher;
+import com.example.scalekit.service.SessionInfo;
 import com.example.scalekit.service.SessionManagementService;
+import com.example.scalekit.service.TokenExpiryInfo;
+import com.example.scalekit.service.TokenRefreshResult;
+import com.example.scalekit.service.TokenValidationResult;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.security.task.DelegatingSecurityContextAsyncTaskExecutor;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.util.Map;
+import java.time.Duration;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+@Lazy
 @Controller
 @RequestMapping("/sessions")
 public class SessionManagementController {
@@ -20,12 +41,33 @@ public class SessionManagementController {
     @Autowired
     private SessionManagementService sessionManagementService;
 
+    @Autowired
+    private SessionEventPublisher sessionEventPublisher;
+
+    @Autowired
+    @Qualifier("sessionTaskExecutor")
+    private AsyncTaskExecutor sessionTaskExecutor;
+
+    @Value("${scalekit.session-endpoints.validate-timeout:5s}")
+    private Duration validateTimeout;
+
+    @Value("${scalekit.session-endpoints.refresh-timeout:10s}")
+    private Duration refreshTimeout;
+
+    private AsyncTaskExecutor securedExecutor;
+
+    @PostConstruct
+    void initExecutor() {
+        // The service reads the current user from the SecurityContextHolder
+        securedExecutor = new DelegatingSecurityContextAsyncTaskExecutor(sessionTaskExecutor);
+    }
+
     @GetMapping
     public String listSessions(@AuthenticationPrincipal OidcUser oidcUser, Model model) {
         try {
             // Get current session information
-            Map<String, Object> sessionInfo = sessionManagementService.getCurrentSessionInfo();
-            Map<String, Object> expiryInfo = sessionManagementService.getTokenExpiryInfo();
+            SessionInfo sessionInfo = sessionManagementService.getCurrentSessionInfo();
+            TokenExpiryInfo expiryInfo = sessionManagementService.getTokenExpiryInfo();
             
             model.addAttribute("sessionInfo", sessionInfo);
             model.addAttribute("expiryInfo", expiryInfo);
@@ -41,15 +83,50 @@ public class SessionManagementController {
     }
 
     @PostMapping("/validate-token")
+    @RateLimited("validate-token")
+    @ResponseBody
+    public DeferredResult<TokenValidationResult> validateToken() {
+        return callAsync(sessionManagementService::validateCurrentAccessToken, validateTimeout, true,
+            error -> TokenValidationResult.invalid(error, false));
+    }
+
+    /**
+     * Token expiry countdown, expiring-soon and refreshed events for the current session
+     */
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     @ResponseBody
-    public Map<String, Object> validateToken() {
-        return sessionManagementService.validateCurrentAccessToken();
+    public SseEmitter sessionEvents(OAuth2AuthenticationToken authentication) {
+        return sessionEventPublisher.subscribe(authentication, sessionManagementService.getTokenExpiryInfo());
     }
 
+    /**
+     * A refresh that has started is never interrupted: the provider may already have rotated
+     * the refresh token, and the new one must still be saved
+     */
     @PostMapping("/refresh-token")
+    @RateLimited("refresh-token")
     @ResponseBody
-    public Map<String, Object> refreshToken() {
-        return sessionManagementService.refreshAccessToken();
+    public DeferredResult<TokenRefreshResult> refreshToken() {
+        return callAsync(sessionManagementService::refreshAccessToken, refreshTimeout, false,
+            error -> TokenRefreshResult.failed(error, false));
+    }
+
+    /**
+     * Run the call off the container thread. On timeout, or when the client goes away, a
+     * call that has not started is dropped and a running one is interrupted if allowed.
+     */
+    private <T> DeferredResult<T> callAsync(Supplier<T> call, Duration timeout, boolean interruptible,
+                                            Function<String, T> failure) {
+        DeferredResult<T> result =
+            new DeferredResult<>(timeout.toMillis(), () -> failure.apply("Timed out after " + timeout.toSeconds() + "s"));
+        
+        try {
+            Future<?> task = securedExecutor.submit(() -> result.setResult(call.get()));
+            result.onCompletion(() -> task.cancel(interruptible));
+        } catch (TaskRejectedException e) {
+            result.setResult(failure.apply("Too many requests in progress, please retry"));
+        }
+        return result;
     }
 
 }
\ No newline at end of file
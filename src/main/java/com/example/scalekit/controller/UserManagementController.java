@@ -1,16 +1,46 @@
 package com.example.scalekit.controller;
 
+import com.example.scalekit.resilience.RateLimited;
+import com.example.scalekit.service.UserExportService;
+import com.example.scalekit.service.UserImportService;
+import com.example.scalekit.service.UserIndex;
 import com.example.scalekit.service.UserService;
+import com.example.scalekit.view.FragmentCache;
+import com.google.protobuf.MessageLite;
 import com.scalekit.grpc.scalekit.v1.users.*;
+import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.core.oidc.user.OidcUser;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.servlet.support.RequestContextUtils;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
+
+@Lazy
 @Controller
 @RequestMapping("/users")
 public class UserManagementController {
@@ -18,15 +48,39 @@ public class UserManagementController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserExportService userExportService;
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserIndex userIndex;
+
+    @Autowired
+    private FragmentCache fragmentCache;
+
+    @Value("${scalekit.page-etags.enabled:true}")
+    private boolean pageEtags;
+
+    @Value("${server.compression.enabled:false}")
+    private boolean compression;
+
     @GetMapping
     public String listUsers(
             @RequestParam(value = "pageSize", defaultValue = "50") Integer pageSize,
             @RequestParam(value = "pageToken", defaultValue = "") String pageToken,
             @AuthenticationPrincipal OidcUser oidcUser,
+            ServletWebRequest webRequest,
             Model model) {
         try {
+            // Listed users carry their memberships, so the page needs no per-user lookups
             ListOrganizationUsersResponse response = userService.listOrganizationUsers(pageSize, pageToken);
+            if (notModified(webRequest, List.of(response))) {
+                return null;
+            }
             model.addAttribute("users", response.getUsersList());
+            model.addAttribute("userRows", userRows(response.getUsersList()));
             model.addAttribute("nextPageToken", response.getNextPageToken());
             model.addAttribute("hasNextPage", !response.getNextPageToken().isEmpty());
             model.addAttribute("currentUser", oidcUser);
@@ -37,11 +91,48 @@ public class UserManagementController {
         }
     }
 
+    /**
+     * Search the local user index by email or name prefix, optionally by membership status
+     */
+    @GetMapping("/search")
+    @ResponseBody
+    public UserIndex.SearchResult searchUsers(
+            @RequestParam(value = "q", defaultValue = "") String query,
+            @RequestParam(value = "status", defaultValue = "") String status,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return userIndex.search(query, status, limit);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format,
+            @RequestParam(value = "pageSize", defaultValue = "100") Integer pageSize) {
+        UserExportService.Format exportFormat;
+        try {
+            exportFormat = UserExportService.Format.from(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        StreamingResponseBody body = outputStream -> userExportService.export(exportFormat, pageSize, outputStream);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"users." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
     @GetMapping("/{userId}")
-    public String getUserDetails(@PathVariable String userId, Model model) {
+    public String getUserDetails(@PathVariable String userId, ServletWebRequest webRequest, Model model) {
         try {
             GetUserResponse response = userService.getUser(userId);
-            model.addAttribute("user", response.getUser());
+            User user = response.getUser();
+            if (notModified(webRequest, List.of(user))) {
+                return null;
+            }
+            model.addAttribute("user", user);
+            model.addAttribute("profileCard", fragmentCache.render("fragments/user-profile-card", "card",
+                    userId, user, Map.of("user", user)));
             return "user-detail";
         } catch (Exception e) {
             model.addAttribute("error", "Failed to load user details: " + e.getMessage());
@@ -56,6 +147,7 @@ public class UserManagementController {
     }
 
     @PostMapping("/create")
+    @RateLimited("create-user")
     public String createUser(
             @RequestParam String email,
             @RequestParam(required = false) String name,
@@ -98,7 +190,32 @@ public class UserManagementController {
         }
     }
 
+    /**
+     * The import runs on the MVC async executor, so the container thread is free while the
+     * rows are created; the upload is opened before the handler returns
+     */
+    @PostMapping("/import")
+    @RateLimited("import-users")
+    public Callable<ResponseEntity<UserImportService.ImportReport>> importUsers(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "sendInvitationEmail", defaultValue = "false") boolean sendInvitationEmail)
+            throws IOException {
+        UserImportService.Format format = UserImportService.Format.fromFilename(file.getOriginalFilename());
+        InputStream inputStream = file.getInputStream();
+        return () -> {
+            try (inputStream) {
+                return ResponseEntity.ok(userImportService.importUsers(inputStream, format, sendInvitationEmail));
+            }
+        };
+    }
+
+    @ExceptionHandler(UserImportService.MalformedImportException.class)
+    public ResponseEntity<ProblemDetail> malformedImport(UserImportService.MalformedImportException e) {
+        return ResponseEntity.badRequest().body(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage()));
+    }
+
     @PostMapping("/{userId}/update")
+    @RateLimited("user-write")
     public String updateUser(
             @PathVariable String userId,
             @ModelAttribute UpdateUser updateUser,
@@ -114,6 +231,7 @@ public class UserManagementController {
     }
 
     @PostMapping("/{userId}/delete")
+    @RateLimited("user-write")
     public String deleteUser(
             @PathVariable String userId,
             RedirectAttributes redirectAttributes) {
@@ -128,6 +246,7 @@ public class UserManagementController {
     }
 
     @PostMapping("/{userId}/resend-invite")
+    @RateLimited("resend-invite")
     public String resendInvite(
             @PathVariable String userId,
             RedirectAttributes redirectAttributes) {
@@ -142,6 +261,7 @@ public class UserManagementController {
     }
 
     @PostMapping("/{userId}/delete-membership")
+    @RateLimited("user-write")
     public String deleteMembership(
             @PathVariable String userId,
             RedirectAttributes redirectAttributes) {
@@ -154,4 +274,54 @@ public class UserManagementController {
             return "redirect:/users/" + userId;
         }
     }
+
+    /**
+     * Rendered table row per user ID; a row is re-rendered only when the user changed
+     */
+    private Map<String, String> userRows(List<User> users) {
+        Map<String, String> rows = new LinkedHashMap<>();
+        for (User user : users) {
+            rows.put(user.getId(), fragmentCache.render("fragments/user-row", "row",
+                    user.getId(), user, Map.of("user", user)));
+        }
+        return rows;
+    }
+
+    /**
+     * Check If-None-Match against an ETag over the page's protobuf content. When the
+     * browser's copy is current, a 304 has been prepared and the page must not be rendered.
+     * The content is read through the user cache before this check, so a revalidation
+     * within the cache's lifetime makes no Scalekit call at all.
+     *
+     * The ETag also covers the session ID, since the page carries the signed-in user and
+     * the session's CSRF token. It is weak while responses are compressed: the gzipped
+     * bytes differ from the identity encoding that a strong ETag would promise. Pages
+     * showing a flash message are never validated, so the message isn't lost to a cached
+     * copy.
+     */
+    private boolean notModified(ServletWebRequest webRequest, Collection<? extends MessageLite> content) {
+        HttpSession session = webRequest.getRequest().getSession(false);
+        Map<String, ?> flashAttributes = RequestContextUtils.getInputFlashMap(webRequest.getRequest());
+        if (!pageEtags || session == null || (flashAttributes != null && !flashAttributes.isEmpty())) {
+            return false;
+        }
+
+        // Revalidate on every view; Spring Security's default no-store would defeat the ETag
+        webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        String etag = '"' + etag(session.getId(), content) + '"';
+        return webRequest.checkNotModified(compression ? "W/" + etag : etag);
+    }
+
+    private static String etag(String sessionId, Collection<? extends MessageLite> content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(sessionId.getBytes(StandardCharsets.UTF_8));
+            for (MessageLite message : content) {
+                digest.update(message.toByteArray());
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
 }
@@ -0,0 +1,61 @@
+package com.example.scalekit.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the time from JVM start until the first request has been served, which is what
+ * an autoscaled pod's readiness actually waits for. Published as application.first-request.time
+ * next to Spring Boot's application.started.time and application.ready.time.
+ */
+@Component
+public class FirstRequestTimer extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(FirstRequestTimer.class);
+
+    private static final long NOT_YET = -1;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final AtomicLong firstRequestMillis = new AtomicLong(NOT_YET);
+
+    @PostConstruct
+    void registerGauge() {
+        TimeGauge.builder("application.first-request.time", firstRequestMillis, TimeUnit.MILLISECONDS,
+                        millis -> millis.get() == NOT_YET ? Double.NaN : millis.get())
+                .description("Time from JVM start until the first request was served")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (firstRequestMillis.get() == NOT_YET) {
+                long uptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+                if (firstRequestMillis.compareAndSet(NOT_YET, uptimeMillis)) {
+                    logger.info("First request ({} {}) served {} ms after JVM start",
+                            request.getMethod(), request.getRequestURI(), uptimeMillis);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.scalekit.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts successful OAuth2 logins; failures are counted by
+ * {@link com.example.scalekit.config.CustomOAuth2AuthenticationFailureHandler}
+ */
+@Component
+public class LoginMetricsListener {
+
+    public static final String LOGIN_METRIC = "scalekit.oauth2.logins";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @EventListener
+    public void onAuthenticationSuccess(AuthenticationSuccessEvent event) {
+        if (event.getAuthentication() instanceof OAuth2AuthenticationToken) {
+            meterRegistry.counter(LOGIN_METRIC, "outcome", "success", "error", "none").increment();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.scalekit.provider;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.jwk.JWKSet;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local snapshot of each provider's OIDC discovery document and JWK set, keyed by client
+ * registration id, so the app can start without reaching the IdP
+ */
+@Component
+public class ProviderMetadataStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProviderMetadataStore.class);
+
+    private static final ParameterizedTypeReference<Map<String, Object>> JSON_OBJECT =
+            new ParameterizedTypeReference<>() { };
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${scalekit.provider-metadata.snapshot-file:./data/scalekit-provider.json}")
+    private Path snapshotFile;
+
+    @Value("${scalekit.provider-metadata.fetch-timeout:5s}")
+    private Duration fetchTimeout;
+
+    private final Map<String, ProviderSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    private RestClient restClient;
+
+    @PostConstruct
+    void load() {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(fetchTimeout);
+        requestFactory.setReadTimeout(fetchTimeout);
+        restClient = RestClient.builder().requestFactory(requestFactory).build();
+
+        if (!Files.isRegularFile(snapshotFile)) {
+            return;
+        }
+        try {
+            snapshots.putAll(objectMapper.readValue(snapshotFile.toFile(),
+                    new TypeReference<Map<String, ProviderSnapshot>>() { }));
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable provider metadata snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Snapshot for the registration, or null if none has been saved yet
+     */
+    public ProviderSnapshot get(String registrationId) {
+        return snapshots.get(registrationId);
+    }
+
+    /**
+     * Snapshot keys for the registration, or null if there are none
+     */
+    public JWKSet getJwkSet(String registrationId) {
+        ProviderSnapshot snapshot = snapshots.get(registrationId);
+        if (snapshot == null || snapshot.jwks() == null) {
+            return null;
+        }
+        try {
+            return JWKSet.parse(snapshot.jwks());
+        } catch (ParseException e) {
+            logger.warn("Ignoring unparseable JWK set in snapshot for {}: {}", registrationId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Fetch the discovery document and JWK set from the issuer
+     */
+    public ProviderSnapshot fetch(String issuerUri) {
+        String issuer = issuerUri.endsWith("/") ? issuerUri.substring(0, issuerUri.length() - 1) : issuerUri;
+        Map<String, Object> metadata = restClient.get()
+                .uri(issuer + "/.well-known/openid-configuration")
+                .retrieve()
+                .body(JSON_OBJECT);
+
+        if (metadata == null || !Objects.equals(trimSlash(metadata.get("issuer")), issuer)) {
+            throw new IllegalStateException("Discovery document from " + issuerUri + " does not match the issuer");
+        }
+
+        Map<String, Object> jwks = null;
+        if (metadata.get("jwks_uri") instanceof String jwksUri) {
+            jwks = restClient.get().uri(jwksUri).retrieve().body(JSON_OBJECT);
+        }
+        return new ProviderSnapshot(metadata, jwks, Instant.now());
+    }
+
+    /**
+     * Keep the snapshot and write all snapshots to the file, replacing it atomically
+     */
+    public synchronized void save(String registrationId, ProviderSnapshot snapshot) {
+        snapshots.put(registrationId, snapshot);
+        try {
+            Path directory = snapshotFile.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path tempFile = Files.createTempFile(directory, "provider-metadata", ".tmp");
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(tempFile.toFile(), snapshots);
+            Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write provider metadata snapshot " + snapshotFile, e);
+        }
+    }
+
+    private static String trimSlash(Object value) {
+        String string = String.valueOf(value);
+        return string.endsWith("/") ? string.substring(0, string.length() - 1) : string;
+    }
+
+    /**
+     * Discovery document and JWK set of one provider, as JSON objects
+     */
+    public record ProviderSnapshot(Map<String, Object> metadata, Map<String, Object> jwks, Instant fetchedAt) {
+    }
+}
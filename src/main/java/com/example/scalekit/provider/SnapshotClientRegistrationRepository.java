@@ -0,0 +1,188 @@
+package com.example.scalekit.provider;
+
+import com.example.scalekit.provider.ProviderMetadataStore.ProviderSnapshot;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.oauth2.client.OAuth2ClientProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.core.AuthenticationMethod;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.core.oidc.IdTokenClaimNames;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Client registrations built from the configured registration properties plus the
+ * provider metadata snapshot, instead of resolving issuer-uri over the network while the
+ * context starts. Only the very first start, with no snapshot yet, goes to the network.
+ * Once the app is serving, the metadata and keys are refreshed in the background and the
+ * snapshot rewritten for the next start.
+ */
+@Component
+@ConditionalOnProperty(name = "scalekit.provider-metadata.startup-mode", havingValue = "snapshot")
+@EnableConfigurationProperties(OAuth2ClientProperties.class)
+public class SnapshotClientRegistrationRepository implements ClientRegistrationRepository, Iterable<ClientRegistration> {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotClientRegistrationRepository.class);
+
+    @Autowired
+    private OAuth2ClientProperties properties;
+
+    @Autowired
+    private ProviderMetadataStore metadataStore;
+
+    @Autowired
+    @Qualifier("scalekitTaskExecutor")
+    private AsyncTaskExecutor executor;
+
+    private volatile Map<String, ClientRegistration> registrations = Map.of();
+
+    @PostConstruct
+    void loadRegistrations() {
+        long startedAt = System.nanoTime();
+        Map<String, ClientRegistration> loaded = new LinkedHashMap<>();
+
+        properties.getRegistration().forEach((registrationId, registration) -> {
+            ProviderSnapshot snapshot = metadataStore.get(registrationId);
+            String source = "snapshot";
+            if (snapshot == null) {
+                snapshot = metadataStore.fetch(issuerUri(registrationId, registration));
+                saveSnapshot(registrationId, snapshot);
+                source = "network discovery";
+            }
+            loaded.put(registrationId, toClientRegistration(registrationId, registration, snapshot));
+            logger.info("Client registration '{}' loaded from {} (metadata fetched {})",
+                    registrationId, source, snapshot.fetchedAt());
+        });
+
+        registrations = Map.copyOf(loaded);
+        logger.info("Client registrations ready in {} ms",
+                Duration.ofNanos(System.nanoTime() - startedAt).toMillis());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void refreshInBackground() {
+        executor.execute(this::refresh);
+    }
+
+    @Override
+    public ClientRegistration findByRegistrationId(String registrationId) {
+        return registrations.get(registrationId);
+    }
+
+    @Override
+    public Iterator<ClientRegistration> iterator() {
+        return registrations.values().iterator();
+    }
+
+    /**
+     * Re-fetch every provider; a provider that cannot be reached keeps its current metadata
+     */
+    void refresh() {
+        Map<String, ClientRegistration> refreshed = new LinkedHashMap<>(registrations);
+        properties.getRegistration().forEach((registrationId, registration) -> {
+            try {
+                ProviderSnapshot snapshot = metadataStore.fetch(issuerUri(registrationId, registration));
+                saveSnapshot(registrationId, snapshot);
+                refreshed.put(registrationId, toClientRegistration(registrationId, registration, snapshot));
+            } catch (RuntimeException e) {
+                logger.warn("Could not refresh provider metadata for '{}', keeping the snapshot: {}",
+                        registrationId, e.getMessage());
+            }
+        });
+        registrations = Map.copyOf(refreshed);
+    }
+
+    private void saveSnapshot(String registrationId, ProviderSnapshot snapshot) {
+        try {
+            metadataStore.save(registrationId, snapshot);
+        } catch (RuntimeException e) {
+            logger.warn("Could not save provider metadata snapshot: {}", e.getMessage());
+        }
+    }
+
+    private String issuerUri(String registrationId, OAuth2ClientProperties.Registration registration) {
+        OAuth2ClientProperties.Provider provider = provider(registrationId, registration);
+        if (provider.getIssuerUri() == null) {
+            throw new IllegalStateException("Snapshot startup mode needs an issuer-uri for '" + registrationId + "'");
+        }
+        return provider.getIssuerUri();
+    }
+
+    private OAuth2ClientProperties.Provider provider(String registrationId,
+                                                     OAuth2ClientProperties.Registration registration) {
+        String providerId = registration.getProvider() != null ? registration.getProvider() : registrationId;
+        return properties.getProvider().getOrDefault(providerId, new OAuth2ClientProperties.Provider());
+    }
+
+    /**
+     * Same mapping as Spring Boot's issuer-uri discovery: explicitly configured provider
+     * endpoints win over the ones from the discovery document
+     */
+    private ClientRegistration toClientRegistration(String registrationId,
+                                                    OAuth2ClientProperties.Registration registration,
+                                                    ProviderSnapshot snapshot) {
+        OAuth2ClientProperties.Provider provider = provider(registrationId, registration);
+        Map<String, Object> metadata = snapshot.metadata();
+
+        ClientRegistration.Builder builder = ClientRegistration.withRegistrationId(registrationId)
+                .clientId(registration.getClientId())
+                .clientSecret(registration.getClientSecret())
+                .clientName(registration.getClientName() != null ? registration.getClientName() : registrationId)
+                .clientAuthenticationMethod(clientAuthenticationMethod(registration, metadata))
+                .authorizationGrantType(new AuthorizationGrantType(registration.getAuthorizationGrantType()))
+                .redirectUri(registration.getRedirectUri())
+                .issuerUri(String.valueOf(metadata.get("issuer")))
+                .authorizationUri(endpoint(provider.getAuthorizationUri(), metadata, "authorization_endpoint"))
+                .tokenUri(endpoint(provider.getTokenUri(), metadata, "token_endpoint"))
+                .jwkSetUri(endpoint(provider.getJwkSetUri(), metadata, "jwks_uri"))
+                .userInfoUri(endpoint(provider.getUserInfoUri(), metadata, "userinfo_endpoint"))
+                .userNameAttributeName(provider.getUserNameAttribute() != null
+                        ? provider.getUserNameAttribute() : IdTokenClaimNames.SUB)
+                .providerConfigurationMetadata(metadata);
+
+        if (registration.getScope() != null) {
+            builder.scope(registration.getScope());
+        }
+        if (provider.getUserInfoAuthenticationMethod() != null) {
+            builder.userInfoAuthenticationMethod(new AuthenticationMethod(provider.getUserInfoAuthenticationMethod()));
+        }
+        return builder.build();
+    }
+
+    private static ClientAuthenticationMethod clientAuthenticationMethod(OAuth2ClientProperties.Registration registration,
+                                                                         Map<String, Object> metadata) {
+        if (registration.getClientAuthenticationMethod() != null) {
+            return new ClientAuthenticationMethod(registration.getClientAuthenticationMethod());
+        }
+        if (metadata.get("token_endpoint_auth_methods_supported") instanceof Collection<?> supported
+                && !supported.contains(ClientAuthenticationMethod.CLIENT_SECRET_BASIC.getValue())
+                && supported.contains(ClientAuthenticationMethod.CLIENT_SECRET_POST.getValue())) {
+            return ClientAuthenticationMethod.CLIENT_SECRET_POST;
+        }
+        return ClientAuthenticationMethod.CLIENT_SECRET_BASIC;
+    }
+
+    private static String endpoint(String configured, Map<String, Object> metadata, String name) {
+        if (configured != null) {
+            return configured;
+        }
+        Object discovered = metadata.get(name);
+        return discovered != null ? discovered.toString() : null;
+    }
+}
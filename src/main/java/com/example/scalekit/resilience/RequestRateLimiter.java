@@ -0,0 +1,176 @@
+package com.example.scalekit.resilience;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token-bucket throttling of {@link RateLimited} handlers, keyed by user and limit name.
+ *
+ * A limit of capacity requests per period lets a user burst up to capacity requests and
+ * then refills one token every period / capacity. Each bucket is a single AtomicLong
+ * updated by compare-and-set, and buckets live in a bounded cache that drops idle ones.
+ * Rejected requests get 429 with Retry-After and are counted in scalekit.rate-limit.rejected.
+ * Only the initial dispatch of a request takes a token, not the dispatch that completes an
+ * async handler. The default and every configured limit are checked at startup.
+ */
+@Component
+public class RequestRateLimiter implements HandlerInterceptor {
+
+    private static final String LIMITS_PREFIX = "scalekit.rate-limit.limits";
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${scalekit.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${scalekit.rate-limit.default-capacity:10}")
+    private int defaultCapacity;
+
+    @Value("${scalekit.rate-limit.default-period:1m}")
+    private Duration defaultPeriod;
+
+    @Value("${scalekit.rate-limit.max-buckets:100000}")
+    private long maxBuckets;
+
+    @Value("${scalekit.rate-limit.idle-timeout:10m}")
+    private Duration idleTimeout;
+
+    private final Map<String, Limit> limits = new ConcurrentHashMap<>();
+
+    private Cache<String, TokenBucket> buckets;
+
+    @PostConstruct
+    void initBuckets() {
+        limit("default", defaultCapacity, defaultPeriod);
+        Binder.get(environment).bind(LIMITS_PREFIX, Bindable.mapOf(String.class, Object.class))
+                .orElse(Map.of())
+                .keySet()
+                .forEach(name -> limits.put(name, configuredLimit(name)));
+
+        buckets = Caffeine.newBuilder()
+                .expireAfterAccess(idleTimeout)
+                .maximumSize(maxBuckets)
+                .build();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (!enabled || request.getDispatcherType() != DispatcherType.REQUEST
+                || !(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        RateLimited rateLimited = handlerMethod.getMethodAnnotation(RateLimited.class);
+        if (rateLimited == null) {
+            return true;
+        }
+
+        Limit limit = limits.computeIfAbsent(rateLimited.value(), this::configuredLimit);
+        TokenBucket bucket = buckets.get(rateLimited.value() + ':' + clientKey(request),
+                key -> new TokenBucket(limit));
+        long waitNanos = bucket.tryConsume(System.nanoTime());
+        if (waitNanos == 0) {
+            return true;
+        }
+
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        meterRegistry.counter("scalekit.rate-limit.rejected", "limit", rateLimited.value()).increment();
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(),
+                "Too many requests, retry in " + retryAfterSeconds + " s");
+        return false;
+    }
+
+    private Limit configuredLimit(String name) {
+        String prefix = LIMITS_PREFIX + "." + name;
+        int capacity = environment.getProperty(prefix + ".capacity", Integer.class, defaultCapacity);
+        Duration period = environment.getProperty(prefix + ".period", Duration.class, defaultPeriod);
+        return limit(name, capacity, period);
+    }
+
+    /**
+     * A limit of capacity requests per period, rejected unless it refills at a positive rate
+     */
+    private static Limit limit(String name, int capacity, Duration period) {
+        if (capacity <= 0) {
+            throw new IllegalStateException("Rate limit '" + name + "' needs a capacity above 0, got " + capacity);
+        }
+        long refillIntervalNanos = period.toNanos() / capacity;
+        if (refillIntervalNanos <= 0) {
+            throw new IllegalStateException("Rate limit '" + name + "' needs a period of at least " + capacity
+                    + " ns to refill, got " + period);
+        }
+        return new Limit(capacity, refillIntervalNanos);
+    }
+
+    private static String clientKey(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        return principal != null ? principal.getName() : request.getRemoteAddr();
+    }
+
+    private record Limit(int capacity, long refillIntervalNanos) {
+    }
+
+    /**
+     * Token bucket kept as the time at which it will be full again (GCRA), so taking a
+     * token is one compare-and-set
+     */
+    private static final class TokenBucket {
+
+        private final long refillIntervalNanos;
+
+        private final long burstNanos;
+
+        private final AtomicLong fullAt;
+
+        TokenBucket(Limit limit) {
+            this.refillIntervalNanos = limit.refillIntervalNanos();
+            this.burstNanos = limit.refillIntervalNanos() * limit.capacity();
+            this.fullAt = new AtomicLong(System.nanoTime());
+        }
+
+        /**
+         * Take a token; 0 if one was available, otherwise the nanos until one will be
+         */
+        long tryConsume(long now) {
+            while (true) {
+                long current = fullAt.get();
+                long next = Math.max(current, now) + refillIntervalNanos;
+                long overdraft = next - now - burstNanos;
+                if (overdraft > 0) {
+                    return overdraft;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
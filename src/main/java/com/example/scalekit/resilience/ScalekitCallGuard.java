@@ -0,0 +1,286 @@
+package com.example.scalekit.resilience;
+
+import com.scalekit.exceptions.APIException;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Wraps every call to the Scalekit SDK with a per-operation deadline, a circuit breaker and
+ * a bulkhead. Auth operations (validate/refresh) and user-management operations have their
+ * own breaker and bulkhead, so a slow users API cannot take logins down with it.
+ *
+ * A bulkhead permit is held by the SDK call itself, not by its caller: a call that missed
+ * its deadline keeps its permit until it actually returns, so calls stuck upstream count
+ * against the bulkhead and cannot pile up behind it.
+ */
+@Component
+public class ScalekitCallGuard {
+
+    public enum OperationGroup {
+        AUTH("auth"),
+        USER_MANAGEMENT("user-management");
+
+        private final String key;
+
+        OperationGroup(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    private static final Set<Status.Code> UPSTREAM_FAILURE_CODES = Set.of(
+            Status.Code.UNAVAILABLE, Status.Code.DEADLINE_EXCEEDED, Status.Code.INTERNAL,
+            Status.Code.UNKNOWN, Status.Code.RESOURCE_EXHAUSTED);
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${scalekit.resilience.default-timeout:5s}")
+    private Duration defaultTimeout;
+
+    @Value("${scalekit.resilience.bulkhead-max-wait:500ms}")
+    private Duration bulkheadMaxWait;
+
+    @Value("${scalekit.resilience.circuit-breaker.window-size:20}")
+    private int windowSize;
+
+    @Value("${scalekit.resilience.circuit-breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${scalekit.resilience.circuit-breaker.failure-rate-threshold:0.5}")
+    private double failureRateThreshold;
+
+    @Value("${scalekit.resilience.circuit-breaker.open-duration:30s}")
+    private Duration openDuration;
+
+    @Value("${scalekit.resilience.circuit-breaker.half-open-calls:3}")
+    private int halfOpenCalls;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final Map<OperationGroup, CircuitBreaker> circuitBreakers = new EnumMap<>(OperationGroup.class);
+
+    private final Map<OperationGroup, Semaphore> bulkheads = new EnumMap<>(OperationGroup.class);
+
+    private final Map<String, Duration> timeouts = new ConcurrentHashMap<>();
+
+    private AsyncTaskExecutor callExecutor;
+
+    @PostConstruct
+    void init() {
+        int totalPermits = 0;
+        for (OperationGroup group : OperationGroup.values()) {
+            int permits = environment.getProperty("scalekit.resilience.bulkheads." + group.getKey(), Integer.class, 20);
+            totalPermits += permits;
+
+            CircuitBreaker circuitBreaker = new CircuitBreaker(windowSize, minimumCalls, failureRateThreshold,
+                    openDuration, halfOpenCalls);
+            Semaphore bulkhead = new Semaphore(permits);
+            circuitBreakers.put(group, circuitBreaker);
+            bulkheads.put(group, bulkhead);
+
+            Gauge.builder("scalekit.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                    .description("Circuit breaker state: 0 closed, 1 open, 2 half-open")
+                    .tag("group", group.getKey())
+                    .register(meterRegistry);
+            Gauge.builder("scalekit.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                    .description("Free call slots in the bulkhead")
+                    .tag("group", group.getKey())
+                    .register(meterRegistry);
+        }
+        callExecutor = createCallExecutor(totalPermits);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (callExecutor instanceof ThreadPoolTaskExecutor threadPool) {
+            threadPool.shutdown();
+        }
+    }
+
+    /**
+     * Run a Scalekit call under the group's breaker and bulkhead and the operation's deadline
+     */
+    public <T> T call(OperationGroup group, String operation, Supplier<T> call) {
+        CircuitBreaker circuitBreaker = circuitBreakers.get(group);
+        if (!circuitBreaker.tryAcquirePermission()) {
+            reject(group, "circuit_open");
+            throw new ScalekitUnavailableException(
+                    "Scalekit " + group.getKey() + " calls are failing, not calling " + operation);
+        }
+
+        Semaphore bulkhead = bulkheads.get(group);
+        try {
+            if (!bulkhead.tryAcquire(bulkheadMaxWait.toMillis(), TimeUnit.MILLISECONDS)) {
+                circuitBreaker.releasePermission();
+                reject(group, "bulkhead_full");
+                throw new ScalekitUnavailableException("Too many concurrent Scalekit " + group.getKey() + " calls");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            circuitBreaker.releasePermission();
+            throw new ScalekitUnavailableException("Interrupted while waiting to call " + operation, e);
+        }
+
+        return callWithDeadline(circuitBreaker, bulkhead, group, operation, call);
+    }
+
+    /**
+     * Same as {@link #call} for operations without a result
+     */
+    public void run(OperationGroup group, String operation, Runnable call) {
+        call(group, operation, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * Run the call on the call executor, which releases the bulkhead permit once the call
+     * returns. A call abandoned before it started releases the permit here instead.
+     */
+    private <T> T callWithDeadline(CircuitBreaker circuitBreaker, Semaphore bulkhead, OperationGroup group,
+                                   String operation, Supplier<T> call) {
+        Duration timeout = timeouts.computeIfAbsent(operation, op ->
+                environment.getProperty("scalekit.resilience.timeouts." + op, Duration.class, defaultTimeout));
+
+        AtomicBoolean started = new AtomicBoolean();
+        Future<T> future;
+        try {
+            future = callExecutor.submit(() -> {
+                if (!started.compareAndSet(false, true)) {
+                    return null;
+                }
+                try {
+                    return call.get();
+                } finally {
+                    bulkhead.release();
+                }
+            });
+        } catch (TaskRejectedException e) {
+            bulkhead.release();
+            circuitBreaker.releasePermission();
+            reject(group, "executor_full");
+            throw new ScalekitUnavailableException("No thread free to call " + operation, e);
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            T result = future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            circuitBreaker.onSuccess();
+            outcome = "success";
+            return result;
+        } catch (TimeoutException e) {
+            abandon(future, started, bulkhead);
+            circuitBreaker.onFailure();
+            outcome = "timeout";
+            reject(group, "timeout");
+            throw new ScalekitUnavailableException("Scalekit call " + operation + " timed out after " + timeout, e);
+        } catch (InterruptedException e) {
+            abandon(future, started, bulkhead);
+            Thread.currentThread().interrupt();
+            circuitBreaker.releasePermission();
+            throw new ScalekitUnavailableException("Interrupted while calling " + operation, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (isUpstreamFailure(cause)) {
+                circuitBreaker.onFailure();
+            } else {
+                // The upstream answered, e.g. with not-found or invalid-argument
+                circuitBreaker.onSuccess();
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            sample.stop(meterRegistry.timer("scalekit.sdk.calls",
+                    "group", group.getKey(), "operation", operation, "outcome", outcome));
+        }
+    }
+
+    /**
+     * Stop waiting for the call: interrupt it if running, or keep it from starting and give
+     * back its permit
+     */
+    private static void abandon(Future<?> future, AtomicBoolean started, Semaphore bulkhead) {
+        if (started.compareAndSet(false, true)) {
+            bulkhead.release();
+        }
+        future.cancel(true);
+    }
+
+    private void reject(OperationGroup group, String reason) {
+        meterRegistry.counter("scalekit.calls.rejected", "group", group.getKey(), "reason", reason).increment();
+    }
+
+    private AsyncTaskExecutor createCallExecutor(int poolSize) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("scalekit-call-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+        // Every submitted call holds a bulkhead permit until it returns, so there is one
+        // thread per permit and the queue only absorbs the moment a thread takes to free up
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(poolSize);
+        executor.setThreadNamePrefix("scalekit-call-");
+        executor.initialize();
+        return executor;
+    }
+
+    private static boolean isUpstreamFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof StatusRuntimeException statusException) {
+                return UPSTREAM_FAILURE_CODES.contains(statusException.getStatus().getCode());
+            }
+            if (cause instanceof APIException) {
+                return false;
+            }
+            if (cause instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
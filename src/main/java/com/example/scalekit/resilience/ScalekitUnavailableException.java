@@ -0,0 +1,16 @@
+package com.example.scalekit.resilience;
+
+/**
+ * Thrown instead of calling Scalekit when the call timed out, the circuit is open or
+ * the operation's bulkhead is full
+ */
+public class ScalekitUnavailableException extends RuntimeException {
+
+    public ScalekitUnavailableException(String message) {
+        super(message);
+    }
+
+    public ScalekitUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
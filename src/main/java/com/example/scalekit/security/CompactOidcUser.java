@@ -0,0 +1,117 @@
+package com.example.scalekit.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.core.oidc.IdTokenClaimNames;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.OidcUserInfo;
+import org.springframework.security.oauth2.core.oidc.StandardClaimNames;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.net.URL;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Session-resident OIDC principal that keeps only the claims the app reads.
+ *
+ * Unlike {@link org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser} it holds
+ * one immutable claims map, sorted by name, instead of separate ID token, user info and attribute maps, and
+ * plain authorities instead of an {@code OidcUserAuthority} carrying yet another copy of the
+ * claims. Strings that repeat across sessions (issuer, audience, scopes, authority names)
+ * are interned. The ID token is rebuilt on demand from the raw value, which logout needs.
+ */
+public final class CompactOidcUser implements OidcUser, Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /** Claims the app reads; the dashboard's claims table shows exactly these */
+    static final Set<String> RETAINED_CLAIMS = Set.of(
+            IdTokenClaimNames.ISS, IdTokenClaimNames.SUB, IdTokenClaimNames.AUD,
+            IdTokenClaimNames.IAT, IdTokenClaimNames.EXP, IdTokenClaimNames.AUTH_TIME, "sid",
+            StandardClaimNames.EMAIL, StandardClaimNames.EMAIL_VERIFIED, StandardClaimNames.NAME,
+            StandardClaimNames.GIVEN_NAME, StandardClaimNames.FAMILY_NAME);
+
+    private final String idTokenValue;
+
+    private final Map<String, Object> claims;
+
+    private final List<GrantedAuthority> authorities;
+
+    private CompactOidcUser(String idTokenValue, Map<String, Object> claims, List<GrantedAuthority> authorities) {
+        this.idTokenValue = idTokenValue;
+        this.claims = claims;
+        this.authorities = authorities;
+    }
+
+    public static CompactOidcUser from(OidcUser oidcUser) {
+        // Sorted once here so the dashboard can list the claims as they are
+        Map<String, Object> claims = new TreeMap<>();
+        oidcUser.getClaims().forEach((name, value) -> {
+            if (value != null && RETAINED_CLAIMS.contains(name)) {
+                claims.put(name.intern(), intern(value));
+            }
+        });
+
+        List<GrantedAuthority> authorities = oidcUser.getAuthorities().stream()
+                .map(authority -> (GrantedAuthority) new SimpleGrantedAuthority(authority.getAuthority().intern()))
+                .distinct()
+                .toList();
+
+        return new CompactOidcUser(oidcUser.getIdToken().getTokenValue(), Collections.unmodifiableMap(claims), authorities);
+    }
+
+    @Override
+    public Map<String, Object> getClaims() {
+        return claims;
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return claims;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getName() {
+        return getSubject();
+    }
+
+    @Override
+    public OidcIdToken getIdToken() {
+        return new OidcIdToken(idTokenValue, getIssuedAt(), getExpiresAt(), claims);
+    }
+
+    /**
+     * User info claims are merged into {@link #getClaims()} at login and not kept separately
+     */
+    @Override
+    public OidcUserInfo getUserInfo() {
+        return null;
+    }
+
+    private static Object intern(Object value) {
+        if (value instanceof String string) {
+            return string.intern();
+        }
+        if (value instanceof URL url) {
+            // The issuer is decoded as a URL, which is far larger than its string form
+            return url.toExternalForm().intern();
+        }
+        if (value instanceof Collection<?> collection) {
+            return collection.stream().map(CompactOidcUser::intern).toList();
+        }
+        return value;
+    }
+}
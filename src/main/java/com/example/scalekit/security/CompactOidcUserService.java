@@ -0,0 +1,20 @@
+package com.example.scalekit.security;
+
+import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserRequest;
+import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserService;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads the OIDC user as usual, then slims it down to a {@link CompactOidcUser} before it is
+ * stored in the session
+ */
+@Component
+public class CompactOidcUserService extends OidcUserService {
+
+    @Override
+    public OidcUser loadUser(OidcUserRequest userRequest) throws OAuth2AuthenticationException {
+        return CompactOidcUser.from(super.loadUser(userRequest));
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.scalekit.security;
+
+import com.example.scalekit.service.UserChangedEvent;
+import com.example.scalekit.store.RevocationStore;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revoked session ids (sid) and subjects (sub), checked on every authenticated request.
+ *
+ * Each node keeps a copy of the shared {@link RevocationStore} in memory, fronted by a Bloom
+ * filter, so the check for a session that was never revoked is a few bit tests. The copy is
+ * synced from the store on a fixed delay and entries older than the TTL, by which time the
+ * sessions they revoked have expired anyway, are dropped with a rebuild of the filter.
+ * Revoking a subject only affects sessions issued before the revocation.
+ */
+@Component
+public class RevocationIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevocationIndex.class);
+
+    private static final String SESSION_PREFIX = "sid:";
+
+    private static final String SUBJECT_PREFIX = "sub:";
+
+    @Autowired
+    private RevocationStore store;
+
+    @Value("${scalekit.revocation.ttl:12h}")
+    private Duration ttl;
+
+    @Value("${scalekit.revocation.clock-skew:30s}")
+    private Duration clockSkew;
+
+    @Value("${scalekit.revocation.expected-entries:10000}")
+    private int expectedEntries;
+
+    @Value("${scalekit.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter filter;
+
+    private volatile Instant syncedUntil = Instant.EPOCH;
+
+    @PostConstruct
+    void init() {
+        filter = new BloomFilter(expectedEntries, falsePositiveRate);
+        sync();
+    }
+
+    public void revokeSession(String sid) {
+        revoke(SESSION_PREFIX + sid);
+    }
+
+    public void revokeSubject(String sub) {
+        revoke(SUBJECT_PREFIX + sub);
+    }
+
+    /**
+     * Whether the session, identified by its ID token's sid, sub and iat, has been revoked
+     */
+    public boolean isRevoked(String sid, String sub, Instant issuedAt) {
+        BloomFilter current = filter;
+        if (sid != null && current.mightContain(SESSION_PREFIX + sid)
+                && revoked.containsKey(SESSION_PREFIX + sid)) {
+            return true;
+        }
+        if (sub == null || !current.mightContain(SUBJECT_PREFIX + sub)) {
+            return false;
+        }
+        Instant subjectRevokedAt = revoked.get(SUBJECT_PREFIX + sub);
+        return subjectRevokedAt != null && (issuedAt == null || !issuedAt.isAfter(subjectRevokedAt));
+    }
+
+    /**
+     * A user deleted or removed from the organization loses every open session
+     */
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.removed()) {
+            revokeSubject(event.userId());
+        }
+    }
+
+    /**
+     * Pull revocations recorded by other nodes and drop expired ones
+     */
+    @Scheduled(fixedDelayString = "${scalekit.revocation.sync-interval:PT5S}")
+    public void sync() {
+        Instant now = Instant.now();
+        try {
+            store.revokedSince(syncedUntil.minus(clockSkew)).forEach(this::add);
+            syncedUntil = now;
+        } catch (RuntimeException e) {
+            logger.warn("Could not sync revocations, keeping the local copy: {}", e.getMessage());
+        }
+
+        Instant expired = now.minus(ttl);
+        if (revoked.values().removeIf(revokedAt -> revokedAt.isBefore(expired))) {
+            rebuildFilter();
+        }
+    }
+
+    private void revoke(String key) {
+        Instant now = Instant.now();
+        add(key, now);
+        try {
+            store.revoke(key, now);
+        } catch (RuntimeException e) {
+            logger.warn("Revocation of {} not shared with other nodes: {}", key, e.getMessage());
+        }
+    }
+
+    private void add(String key, Instant revokedAt) {
+        revoked.merge(key, revokedAt, (current, added) -> added.isAfter(current) ? added : current);
+        filter.put(key);
+    }
+
+    /**
+     * Bloom filters cannot remove entries, so start a new one from what is left. Keys added
+     * meanwhile go into the old filter as well and are re-added here from the map.
+     */
+    private void rebuildFilter() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, revoked.size() * 2), falsePositiveRate);
+        revoked.keySet().forEach(rebuilt::put);
+        filter = rebuilt;
+        revoked.keySet().forEach(rebuilt::put);
+    }
+}
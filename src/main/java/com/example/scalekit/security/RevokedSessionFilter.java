@@ -0,0 +1,93 @@
+package com.example.scalekit.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Ends a session, or rejects a bearer token, whose sid or sub has been revoked. The session
+ * and the user's stored tokens are evicted when the revoked session is next used; the
+ * request then continues unauthenticated, so it is sent to the login page or gets a 401.
+ *
+ * Added to the security filter chains in {@code SecurityConfig}, not registered as a bean.
+ */
+public class RevokedSessionFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevokedSessionFilter.class);
+
+    private final RevocationIndex revocationIndex;
+
+    private final OAuth2AuthorizedClientService authorizedClientService;
+
+    public RevokedSessionFilter(RevocationIndex revocationIndex, OAuth2AuthorizedClientService authorizedClientService) {
+        this.revocationIndex = revocationIndex;
+        this.authorizedClientService = authorizedClientService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        Map<String, Object> claims = claims(authentication);
+        if (claims != null && revocationIndex.isRevoked(string(claims.get("sid")), string(claims.get("sub")),
+                instant(claims.get("iat")))) {
+            evict(request, authentication);
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private void evict(HttpServletRequest request, Authentication authentication) {
+        logger.debug("Ending revoked session of {}", authentication.getName());
+        if (authentication instanceof OAuth2AuthenticationToken oauth2Authentication) {
+            authorizedClientService.removeAuthorizedClient(
+                    oauth2Authentication.getAuthorizedClientRegistrationId(), oauth2Authentication.getName());
+        }
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            session.invalidate();
+        }
+        SecurityContextHolder.clearContext();
+    }
+
+    private static Map<String, Object> claims(Authentication authentication) {
+        if (authentication == null) {
+            return null;
+        }
+        if (authentication.getPrincipal() instanceof OidcUser oidcUser) {
+            return oidcUser.getClaims();
+        }
+        if (authentication.getPrincipal() instanceof Jwt jwt) {
+            return jwt.getClaims();
+        }
+        return null;
+    }
+
+    private static String string(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    private static Instant instant(Object value) {
+        if (value instanceof Instant instant) {
+            return instant;
+        }
+        if (value instanceof Number epochSeconds) {
+            return Instant.ofEpochSecond(epochSeconds.longValue());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.scalekit.service;
+
+import com.example.scalekit.provider.ProviderMetadataStore;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.JWKSourceBuilder;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.jwt.JwtClaimValidator;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.stereotype.Component;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Validates Scalekit access tokens in-process against the provider's JWK set.
+ *
+ * The JWK set is fetched from the registration's jwk-set-uri and cached; a token signed
+ * with an unknown kid triggers a refetch, limited to one per refetch interval so a flood
+ * of bad tokens cannot hammer the IdP. Decoded tokens are kept in a bounded cache keyed by
+ * token hash until they expire, so repeat validations never leave the JVM and skip the
+ * signature check. When the JWK set cannot be fetched, the keys from the provider metadata
+ * snapshot are used instead. Back-channel logout tokens go through a separate decoder that
+ * shares the keys but never the token cache.
+ */
+@Component
+public class LocalAccessTokenValidator {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalAccessTokenValidator.class);
+
+    private static final String BACKCHANNEL_LOGOUT_EVENT = "http://schemas.openid.net/event/backchannel-logout";
+
+    @Autowired
+    private ClientRegistrationRepository clientRegistrationRepository;
+
+    @Autowired
+    private ProviderMetadataStore providerMetadataStore;
+
+    @Autowired
+    @Qualifier("scalekitTaskExecutor")
+    private AsyncTaskExecutor executor;
+
+    @Value("${scalekit.token-validation.registration-id:scalekit}")
+    private String registrationId;
+
+    @Value("${scalekit.token-validation.audience:}")
+    private String audience;
+
+    @Value("${scalekit.token-validation.jwks-cache-ttl:15m}")
+    private Duration jwksCacheTtl;
+
+    @Value("${scalekit.token-validation.jwks-refetch-interval:30s}")
+    private Duration jwksRefetchInterval;
+
+    @Value("${scalekit.token-validation.max-cached-tokens:10000}")
+    private int maxCachedTokens;
+
+    private Cache<String, ValidatedToken> validatedTokens;
+
+    private JwtDecoder jwtDecoder;
+
+    private JwtDecoder logoutTokenDecoder;
+
+    private JWKSource<SecurityContext> jwkSource;
+
+    @PostConstruct
+    void initTokenCache() {
+        validatedTokens = Caffeine.newBuilder()
+                .maximumSize(maxCachedTokens)
+                .expireAfter(Expiry.creating((String key, ValidatedToken validated) ->
+                        nonNegative(Duration.between(Instant.now(), validated.jwt().getExpiresAt()))))
+                .build();
+    }
+
+    @PostConstruct
+    void initDecoder() throws MalformedURLException {
+        ClientRegistration registration = clientRegistrationRepository.findByRegistrationId(registrationId);
+        if (registration == null) {
+            throw new IllegalStateException("No client registration found for '" + registrationId + "'");
+        }
+        ClientRegistration.ProviderDetails provider = registration.getProviderDetails();
+
+        JWKSourceBuilder<SecurityContext> jwkSourceBuilder = JWKSourceBuilder
+                .<SecurityContext>create(new URL(provider.getJwkSetUri()))
+                .cache(jwksCacheTtl.toMillis(), JWKSourceBuilder.DEFAULT_CACHE_REFRESH_TIMEOUT)
+                .rateLimited(jwksRefetchInterval.toMillis());
+        JWKSet snapshotKeys = providerMetadataStore.getJwkSet(registrationId);
+        if (snapshotKeys != null) {
+            jwkSourceBuilder.failover(new ImmutableJWKSet<>(snapshotKeys));
+        }
+        jwkSource = jwkSourceBuilder.build();
+
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.Family.RSA, jwkSource));
+        // Claims are checked by the Spring validators below
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> { });
+
+        NimbusJwtDecoder decoder = new NimbusJwtDecoder(jwtProcessor);
+        decoder.setJwtValidator(createValidator(provider.getIssuerUri()));
+        this.jwtDecoder = decoder;
+
+        NimbusJwtDecoder logoutDecoder = new NimbusJwtDecoder(jwtProcessor);
+        logoutDecoder.setJwtValidator(createLogoutTokenValidator(provider.getIssuerUri()));
+        this.logoutTokenDecoder = logoutDecoder;
+    }
+
+    /**
+     * Fetch the JWK set once the app is serving, so the first validation does not wait for it
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void prefetchKeys() {
+        executor.execute(() -> {
+            try {
+                jwkSource.get(new JWKSelector(new JWKMatcher.Builder().build()), null);
+            } catch (KeySourceException e) {
+                logger.warn("Could not prefetch the JWK set: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Validate the token and return its claims, serving repeat validations from memory.
+     * Timestamp claims are returned as epoch seconds, matching the Scalekit SDK.
+     */
+    public Map<String, Object> validate(String token) throws JwtException {
+        return validatedToken(token).claims();
+    }
+
+    /**
+     * Validate the token and return it decoded; a {@link JwtDecoder} for bearer authentication
+     */
+    public Jwt decode(String token) throws JwtException {
+        return validatedToken(token).jwt();
+    }
+
+    /**
+     * Validate a back-channel logout token and return it decoded: signature, issuer and
+     * timestamps as for an access token, plus the logout event, a jti and an expiry. Every
+     * call checks the token in full; logout tokens are never cached.
+     */
+    public Jwt decodeLogoutToken(String token) throws JwtException {
+        return logoutTokenDecoder.decode(token);
+    }
+
+    /**
+     * Simple boolean check for token validation
+     */
+    public boolean isValid(String token) {
+        try {
+            validate(token);
+            return true;
+        } catch (JwtException e) {
+            return false;
+        }
+    }
+
+    private OAuth2TokenValidator<Jwt> createValidator(String issuer) {
+        OAuth2TokenValidator<Jwt> defaults = issuer != null
+                ? JwtValidators.createDefaultWithIssuer(issuer)
+                : JwtValidators.createDefault();
+        if (audience == null || audience.isBlank()) {
+            return defaults;
+        }
+        OAuth2TokenValidator<Jwt> audienceValidator =
+                new JwtClaimValidator<List<String>>(JwtClaimNames.AUD, aud -> aud != null && aud.contains(audience));
+        return new DelegatingOAuth2TokenValidator<>(defaults, audienceValidator);
+    }
+
+    /**
+     * The audience is the client the logout is for, which the caller checks per registration
+     */
+    private static OAuth2TokenValidator<Jwt> createLogoutTokenValidator(String issuer) {
+        OAuth2TokenValidator<Jwt> defaults = issuer != null
+                ? JwtValidators.createDefaultWithIssuer(issuer)
+                : JwtValidators.createDefault();
+        return new DelegatingOAuth2TokenValidator<>(defaults,
+                new JwtClaimValidator<Object>("events",
+                        events -> events instanceof Map<?, ?> map && map.containsKey(BACKCHANNEL_LOGOUT_EVENT)),
+                new JwtClaimValidator<Object>(JwtClaimNames.JTI, jti -> jti instanceof String id && !id.isBlank()),
+                new JwtClaimValidator<Object>(JwtClaimNames.EXP, Objects::nonNull));
+    }
+
+    private ValidatedToken validatedToken(String token) {
+        String key = hash(token);
+        ValidatedToken cached = validatedTokens.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Jwt jwt = jwtDecoder.decode(token);
+        ValidatedToken validated = new ValidatedToken(jwt, toClaimsMap(jwt));
+        // Tokens without an expiry are validated every time
+        if (jwt.getExpiresAt() != null) {
+            validatedTokens.put(key, validated);
+        }
+        return validated;
+    }
+
+    private static Duration nonNegative(Duration duration) {
+        return duration.isNegative() ? Duration.ZERO : duration;
+    }
+
+    private static Map<String, Object> toClaimsMap(Jwt jwt) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        jwt.getClaims().forEach((name, value) ->
+                claims.put(name, value instanceof Instant instant ? instant.getEpochSecond() : value));
+        return Collections.unmodifiableMap(claims);
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record ValidatedToken(Jwt jwt, Map<String, Object> claims) {
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.scalekit.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes token expiry to the open sessions pages over Server-Sent Events.
+ *
+ * Connections are async requests held as {@link SseEmitter}s, not threads. One shared
+ * scheduled task loads each subscribed principal's authorized client once per tick, however
+ * many tabs they have open, and sends an "expiry" event to each of them, plus a one-off
+ * "expiring-soon" event. A "refreshed" event goes out as soon as new tokens are saved.
+ *
+ * Events are written on the SSE executor, never on the scheduler or the thread that saved
+ * the tokens. A stream whose write fails or takes longer than the send timeout is dropped
+ * and completed, so a client that stops reading cannot hold up the other streams.
+ */
+@Component
+public class SessionEventPublisher {
+
+    @Autowired
+    private OAuth2AuthorizedClientService authorizedClientService;
+
+    @Autowired
+    @Qualifier("sseTaskExecutor")
+    private AsyncTaskExecutor executor;
+
+    @Value("${scalekit.session-events.timeout:30m}")
+    private Duration emitterTimeout;
+
+    @Value("${scalekit.session-events.send-timeout:5s}")
+    private Duration sendTimeout;
+
+    private final Map<String, Subscribers> subscribers = new ConcurrentHashMap<>();
+
+    /**
+     * Open an event stream for the principal, starting with their current expiry
+     */
+    public SseEmitter subscribe(OAuth2AuthenticationToken authentication, TokenExpiryInfo currentExpiry) {
+        String registrationId = authentication.getAuthorizedClientRegistrationId();
+        String key = key(registrationId, authentication.getName());
+        SseEmitter emitter = createEmitter();
+
+        subscribers.compute(key, (k, group) -> {
+            Subscribers subscribed = group != null ? group : new Subscribers(registrationId, authentication.getName());
+            subscribed.emitters.add(emitter);
+            return subscribed;
+        });
+        emitter.onCompletion(() -> unsubscribe(key, emitter));
+        emitter.onTimeout(() -> unsubscribe(key, emitter));
+        emitter.onError(e -> unsubscribe(key, emitter));
+
+        if (!send(emitter, "expiry", currentExpiry)) {
+            unsubscribe(key, emitter);
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    @Scheduled(fixedRateString = "${scalekit.session-events.interval:PT15S}")
+    public void publishExpiry() {
+        Instant now = Instant.now();
+        subscribers.forEach((key, group) -> {
+            OAuth2AuthorizedClient client =
+                authorizedClientService.loadAuthorizedClient(group.registrationId, group.principalName);
+            TokenExpiryInfo expiry = client != null && client.getAccessToken().getExpiresAt() != null
+                ? TokenExpiryInfo.at(client.getAccessToken().getExpiresAt(), now)
+                : TokenExpiryInfo.UNKNOWN;
+
+            List<String> eventNames = new ArrayList<>(List.of("expiry"));
+            if (expiry.expiringSoon() && !group.expiringSoonSent) {
+                group.expiringSoonSent = true;
+                eventNames.add("expiring-soon");
+            }
+            broadcast(key, group, eventNames, expiry);
+        });
+    }
+
+    @EventListener
+    public void onTokensRefreshed(TokensRefreshedEvent event) {
+        String key = key(event.registrationId(), event.principalName());
+        Subscribers group = subscribers.get(key);
+        if (group == null) {
+            return;
+        }
+
+        TokenExpiryInfo expiry = event.accessTokenExpiresAt() != null
+            ? TokenExpiryInfo.at(event.accessTokenExpiresAt(), Instant.now())
+            : TokenExpiryInfo.UNKNOWN;
+        group.expiringSoonSent = expiry.expiringSoon();
+        broadcast(key, group, List.of("refreshed"), expiry);
+    }
+
+    /**
+     * A new, not yet subscribed stream
+     */
+    SseEmitter createEmitter() {
+        return new SseEmitter(emitterTimeout.toMillis());
+    }
+
+    /**
+     * Write the events to each of the group's streams on the SSE executor, in order per stream
+     */
+    private void broadcast(String key, Subscribers group, List<String> eventNames, TokenExpiryInfo expiry) {
+        for (SseEmitter emitter : group.emitters) {
+            CompletableFuture<Boolean> sent;
+            try {
+                sent = CompletableFuture.supplyAsync(() -> sendAll(emitter, eventNames, expiry), executor);
+            } catch (RejectedExecutionException e) {
+                // Every SSE thread is busy; the next tick sends the current expiry again
+                continue;
+            }
+            // A timed-out write may still be blocked, but the stream gets no further events
+            sent.orTimeout(sendTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((delivered, error) -> {
+                    if (error != null) {
+                        unsubscribe(key, emitter);
+                        closeWithError(emitter, error);
+                    } else if (!delivered) {
+                        unsubscribe(key, emitter);
+                        emitter.complete();
+                    }
+                });
+        }
+    }
+
+    private void unsubscribe(String key, SseEmitter emitter) {
+        subscribers.computeIfPresent(key, (k, group) -> {
+            group.emitters.remove(emitter);
+            return group.emitters.isEmpty() ? null : group;
+        });
+    }
+
+    /**
+     * End a stream whose write failed or timed out. Completing waits for a write still in
+     * progress, so it runs on the SSE executor rather than the thread that timed the write out.
+     */
+    private void closeWithError(SseEmitter emitter, Throwable error) {
+        try {
+            executor.execute(() -> emitter.completeWithError(error));
+        } catch (RejectedExecutionException e) {
+            // Every SSE thread is busy; the emitter's own timeout ends the stream
+        }
+    }
+
+    private static boolean sendAll(SseEmitter emitter, List<String> eventNames, TokenExpiryInfo expiry) {
+        for (String eventName : eventNames) {
+            if (!send(emitter, eventName, expiry)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Send one event; false when the client has gone away
+     */
+    private static boolean send(SseEmitter emitter, String eventName, TokenExpiryInfo expiry) {
+        try {
+            emitter.send(SseEmitter.event().name(eventName).data(expiry, MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            return false;
+        }
+    }
+
+    private static String key(String registrationId, String principalName) {
+        return registrationId + ":" + principalName;
+    }
+
+    /**
+     * Open streams of one principal
+     */
+    private static final class Subscribers {
+
+        private final String registrationId;
+
+        private final String principalName;
+
+        private final Set<SseEmitter> emitters = ConcurrentHashMap.newKeySet();
+
+        private volatile boolean expiringSoonSent;
+
+        Subscribers(String registrationId, String principalName) {
+            this.registrationId = registrationId;
+            this.principalName = principalName;
+        }
+    }
+}
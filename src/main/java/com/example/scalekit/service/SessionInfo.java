@@ -0,0 +1,12 @@
+package com.example.scalekit.service;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * The current user and their tokens, for the sessions page
+ */
+public record SessionInfo(String userId, String email, String name,
+                          String accessToken, String tokenType, Set<String> scopes, Instant expiresAt,
+                          boolean hasRefreshToken, String refreshToken, String refreshTokenType) {
+}
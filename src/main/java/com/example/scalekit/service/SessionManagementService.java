@@ -1,82 +1,102 @@
 package com.example.scalekit.service;
 
+import com.example.scalekit.resilience.ScalekitCallGuard;
+import com.example.scalekit.resilience.ScalekitCallGuard.OperationGroup;
+import com.example.scalekit.service.TokenRefreshCoordinator.RefreshedTokens;
 import com.scalekit.ScalekitClient;
 import com.scalekit.api.AuthClient;
 import com.scalekit.exceptions.APIException;
-import com.scalekit.internal.http.AuthenticationResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
 import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
-import org.springframework.security.oauth2.client.registration.ClientRegistration;
-import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
 import org.springframework.security.oauth2.core.OAuth2AccessToken;
 import org.springframework.security.oauth2.core.OAuth2RefreshToken;
 import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.security.oauth2.jwt.JwtException;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
 
+@Lazy
 @Service
 public class SessionManagementService {
 
+    private static final Logger logger = LoggerFactory.getLogger(SessionManagementService.class);
+
+    private static final String SNAPSHOT_ATTRIBUTE = SessionManagementService.class.getName() + ".SNAPSHOT";
+
     @Autowired
     private OAuth2AuthorizedClientService authorizedClientService;
 
     @Autowired
-    private ClientRegistrationRepository clientRegistrationRepository;
+    private ScalekitClient scalekitClient;
 
     @Autowired
-    private ScalekitClient scalekitClient;
+    private LocalAccessTokenValidator accessTokenValidator;
+
+    @Autowired
+    private TokenRefreshCoordinator tokenRefreshCoordinator;
+
+    @Autowired
+    private ScalekitCallGuard callGuard;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${scalekit.token-validation.local:true}")
+    private boolean localTokenValidation;
 
     /**
      * Get current session information 
      */
-    public Map<String, Object> getCurrentSessionInfo() {
-        Map<String, Object> sessionInfo = new HashMap<>();
-        
+    public SessionInfo getCurrentSessionInfo() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         
         // Get basic user info from OIDC
+        String userId = null;
+        String email = null;
+        String name = null;
         if (authentication.getPrincipal() instanceof OidcUser oidcUser) {
-            sessionInfo.put("userId", oidcUser.getSubject());
-            sessionInfo.put("email", oidcUser.getEmail());
-            sessionInfo.put("name", oidcUser.getFullName());
+            userId = oidcUser.getSubject();
+            email = oidcUser.getEmail();
+            name = oidcUser.getFullName();
         }
         
         // Get token info from OAuth2AuthorizedClient
-        if (authentication instanceof OAuth2AuthenticationToken oauth2Token) {
+        if (authentication instanceof OAuth2AuthenticationToken) {
             try {
-                OAuth2AuthorizedClient authorizedClient = authorizedClientService
-                    .loadAuthorizedClient(oauth2Token.getAuthorizedClientRegistrationId(), oauth2Token.getName());
+                OAuth2AuthorizedClient authorizedClient = currentSnapshot().client();
                 
                 if (authorizedClient != null && authorizedClient.getAccessToken() != null) {
                     OAuth2AccessToken accessToken = authorizedClient.getAccessToken();
                     OAuth2RefreshToken refreshToken = authorizedClient.getRefreshToken();
                     
-                    sessionInfo.put("accessToken", accessToken.getTokenValue());
-                    sessionInfo.put("tokenType", accessToken.getTokenType().getValue());
-                    sessionInfo.put("scopes", accessToken.getScopes());
-                    sessionInfo.put("expiresAt", accessToken.getExpiresAt());
-                    sessionInfo.put("hasRefreshToken", refreshToken != null);
-                    
-                    // Add refresh token if available
-                    if (refreshToken != null) {
-                        sessionInfo.put("refreshToken", refreshToken.getTokenValue());
-                        sessionInfo.put("refreshTokenType", "Bearer");
-                    }
+                    return new SessionInfo(userId, email, name,
+                        accessToken.getTokenValue(), accessToken.getTokenType().getValue(),
+                        accessToken.getScopes(), accessToken.getExpiresAt(),
+                        refreshToken != null,
+                        refreshToken != null ? refreshToken.getTokenValue() : null,
+                        refreshToken != null ? "Bearer" : null);
                 }
             } catch (Exception e) {
-                System.err.println("Error getting OAuth2 tokens: " + e.getMessage());
+                logger.warn("Error getting OAuth2 tokens: {}", e.getMessage());
             }
         }
         
-        return sessionInfo;
+        return new SessionInfo(userId, email, name, null, null, null, null, false, null, null);
     }
 
     /**
@@ -84,20 +104,9 @@ public class SessionManagementService {
      */
     public boolean isTokenExpired() {
         try {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            
-            if (authentication instanceof OAuth2AuthenticationToken oauth2Token) {
-                OAuth2AuthorizedClient authorizedClient = authorizedClientService
-                    .loadAuthorizedClient(oauth2Token.getAuthorizedClientRegistrationId(), oauth2Token.getName());
-                
-                if (authorizedClient != null && authorizedClient.getAccessToken() != null) {
-                    Instant now = Instant.now();
-                    Instant expiresAt = authorizedClient.getAccessToken().getExpiresAt();
-                    return expiresAt != null && now.isAfter(expiresAt);
-                }
-            }
+            return currentSnapshot().expired();
         } catch (Exception e) {
-            System.err.println("Error checking token expiry: " + e.getMessage());
+            logger.warn("Error checking token expiry: {}", e.getMessage());
         }
         
         return false;
@@ -108,23 +117,9 @@ public class SessionManagementService {
      */
     public boolean isTokenExpiringSoon() {
         try {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            
-            if (authentication instanceof OAuth2AuthenticationToken oauth2Token) {
-                OAuth2AuthorizedClient authorizedClient = authorizedClientService
-                    .loadAuthorizedClient(oauth2Token.getAuthorizedClientRegistrationId(), oauth2Token.getName());
-                
-                if (authorizedClient != null && authorizedClient.getAccessToken() != null) {
-                    Instant now = Instant.now();
-                    Instant expiresAt = authorizedClient.getAccessToken().getExpiresAt();
-                    if (expiresAt != null) {
-                        long minutesUntilExpiry = ChronoUnit.MINUTES.between(now, expiresAt);
-                        return minutesUntilExpiry <= 5;
-                    }
-                }
-            }
+            return currentSnapshot().expiringSoon();
         } catch (Exception e) {
-            System.err.println("Error checking token expiry: " + e.getMessage());
+            logger.warn("Error checking token expiry: {}", e.getMessage());
         }
         
         return false;
@@ -134,15 +129,10 @@ public class SessionManagementService {
      * Get the current access token value
      */
     public String getCurrentAccessToken() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        OAuth2AuthorizedClient authorizedClient = currentSnapshot().client();
         
-        if (authentication instanceof OAuth2AuthenticationToken oauth2Token) {
-            OAuth2AuthorizedClient authorizedClient = authorizedClientService
-                .loadAuthorizedClient(oauth2Token.getAuthorizedClientRegistrationId(), oauth2Token.getName());
-            
-            if (authorizedClient != null && authorizedClient.getAccessToken() != null) {
-                return authorizedClient.getAccessToken().getTokenValue();
-            }
+        if (authorizedClient != null && authorizedClient.getAccessToken() != null) {
+            return authorizedClient.getAccessToken().getTokenValue();
         }
         
         return null;
@@ -151,91 +141,56 @@ public class SessionManagementService {
     /**
      * Get token expiry information for display 
      */
-    public Map<String, Object> getTokenExpiryInfo() {
-        Map<String, Object> expiryInfo = new HashMap<>();
-        
+    public TokenExpiryInfo getTokenExpiryInfo() {
         try {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            AuthorizedClientSnapshot snapshot = currentSnapshot();
             
-            if (authentication instanceof OAuth2AuthenticationToken oauth2Token) {
-                OAuth2AuthorizedClient authorizedClient = authorizedClientService
-                    .loadAuthorizedClient(oauth2Token.getAuthorizedClientRegistrationId(), oauth2Token.getName());
-                
-                if (authorizedClient != null && authorizedClient.getAccessToken() != null) {
-                    Instant now = Instant.now();
-                    Instant expiresAt = authorizedClient.getAccessToken().getExpiresAt();
-                    
-                    if (expiresAt != null) {
-                        long minutesUntilExpiry = ChronoUnit.MINUTES.between(now, expiresAt);
-                        
-                        expiryInfo.put("expiresAt", expiresAt);
-                        expiryInfo.put("minutesUntilExpiry", minutesUntilExpiry);
-                        expiryInfo.put("isExpired", now.isAfter(expiresAt));
-                        expiryInfo.put("isExpiringSoon", minutesUntilExpiry <= 5);
-                        
-                        // Simple expiry display
-                        if (minutesUntilExpiry > 60) {
-                            long hours = minutesUntilExpiry / 60;
-                            expiryInfo.put("expiryDisplay", String.format("%d hours", hours));
-                        } else {
-                            expiryInfo.put("expiryDisplay", String.format("%d minutes", minutesUntilExpiry));
-                        }
-                    }
-                }
+            if (snapshot.expiresAt() != null) {
+                return TokenExpiryInfo.of(snapshot.expiresAt(), snapshot.minutesUntilExpiry(),
+                    snapshot.expired(), snapshot.expiringSoon());
             }
         } catch (Exception e) {
-            System.err.println("Error getting token expiry info: " + e.getMessage());
+            logger.warn("Error getting token expiry info: {}", e.getMessage());
         }
         
-        return expiryInfo;
+        return TokenExpiryInfo.UNKNOWN;
     }
 
     /**
-     * Validate the current access token using Scalekit SDK
+     * Validate the current access token, locally against the cached JWK set or via the Scalekit SDK
      */
-    public Map<String, Object> validateCurrentAccessToken() {
-        Map<String, Object> validationResult = new HashMap<>();
-        
+    public TokenValidationResult validateCurrentAccessToken() {
         try {
             String accessToken = getCurrentAccessToken();
             
             if (accessToken == null || accessToken.isEmpty()) {
-                validationResult.put("valid", false);
-                validationResult.put("error", "No access token found");
-                return validationResult;
+                return TokenValidationResult.missingToken();
             }
             
-            AuthClient authClient = scalekitClient.authentication();
-            
             // Validate the token and get claims
-            Map<String, Object> claims = authClient.validateAccessTokenAndGetClaims(accessToken);
-            
-            validationResult.put("valid", true);
-            validationResult.put("claims", claims);
-            validationResult.put("message", "Token is valid");
-            
-            // Extract useful information from claims
-            if (claims != null) {
-                validationResult.put("userId", claims.get("sub"));
-                validationResult.put("email", claims.get("email"));
-                validationResult.put("name", claims.get("name"));
-                validationResult.put("exp", claims.get("exp"));
-                validationResult.put("iat", claims.get("iat"));
-                validationResult.put("iss", claims.get("iss"));
-                validationResult.put("aud", claims.get("aud"));
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "invalid";
+            Map<String, Object> claims;
+            try {
+                claims = localTokenValidation
+                    ? accessTokenValidator.validate(accessToken)
+                    : callGuard.call(OperationGroup.AUTH, "validate-access-token",
+                        () -> scalekitClient.authentication().validateAccessTokenAndGetClaims(accessToken));
+                outcome = "valid";
+            } finally {
+                sample.stop(meterRegistry.timer("scalekit.token.validation",
+                    "mode", localTokenValidation ? "local" : "remote", "outcome", outcome));
             }
             
+            return TokenValidationResult.valid(claims);
+            
         } catch (APIException e) {
-            validationResult.put("valid", false);
-            validationResult.put("error", "Token validation failed: " + e.getMessage());
-            validationResult.put("apiError", true);
+            return TokenValidationResult.invalid("Token validation failed: " + e.getMessage(), true);
+        } catch (JwtException e) {
+            return TokenValidationResult.invalid("Token validation failed: " + e.getMessage(), false);
         } catch (Exception e) {
-            validationResult.put("valid", false);
-            validationResult.put("error", "Unexpected error during token validation: " + e.getMessage());
-            validationResult.put("apiError", false);
+            return TokenValidationResult.invalid("Unexpected error during token validation: " + e.getMessage(), false);
         }
-        
-        return validationResult;
     }
 
     /**
@@ -248,8 +203,13 @@ public class SessionManagementService {
                 return false;
             }
             
+            if (localTokenValidation) {
+                return accessTokenValidator.isValid(accessToken);
+            }
+            
             AuthClient authClient = scalekitClient.authentication();
-            return authClient.validateAccessToken(accessToken);
+            return callGuard.call(OperationGroup.AUTH, "validate-access-token",
+                () -> authClient.validateAccessToken(accessToken));
             
         } catch (Exception e) {
             return false;
@@ -259,129 +219,103 @@ public class SessionManagementService {
     /**
      * Refresh the access token using the refresh token
      */
-    public Map<String, Object> refreshAccessToken() {
-        Map<String, Object> refreshResult = new HashMap<>();
-        
+    public TokenRefreshResult refreshAccessToken() {
         try {
             // Get current refresh token
             String refreshToken = getCurrentRefreshToken();
             
             if (refreshToken == null || refreshToken.isEmpty()) {
-                refreshResult.put("success", false);
-                refreshResult.put("error", "No refresh token available");
-                return refreshResult;
+                return TokenRefreshResult.noRefreshToken();
             }
             
-            AuthClient authClient = scalekitClient.authentication();
+            OAuth2AuthenticationToken oauth2Token =
+                (OAuth2AuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
             
-            // Call Scalekit SDK to refresh the token
-            AuthenticationResponse authResponse = authClient.refreshAccessToken(refreshToken);
+            // Refresh through the coordinator so concurrent requests share one upstream call;
+            // it also saves the new tokens to the authorized client store
+            RefreshedTokens refreshed = tokenRefreshCoordinator
+                .refresh(oauth2Token, oauth2Token.getAuthorizedClientRegistrationId())
+                .join();
+            clearSnapshot();
             
-            if (authResponse != null) {
-                // Update the OAuth2AuthorizedClient with new tokens
-                boolean tokensUpdated = updateOAuth2AuthorizedClientWithNewTokens(authResponse);
-                
-                refreshResult.put("success", true);
-                refreshResult.put("message", "Tokens refreshed successfully");
-                refreshResult.put("newAccessToken", authResponse.getAccessToken());
-                refreshResult.put("newRefreshToken", authResponse.getRefreshToken());
-                refreshResult.put("newIdToken", authResponse.getIdToken());
-                refreshResult.put("tokensUpdatedInContext", tokensUpdated);
-                
-                if (tokensUpdated) {
-                    refreshResult.put("note", "New tokens have been updated in the session context.");
-                } else {
-                    refreshResult.put("note", "New tokens obtained but could not be updated in session context.");
-                }
-            } else {
-                refreshResult.put("success", false);
-                refreshResult.put("error", "No response from token refresh");
-            }
+            return TokenRefreshResult.refreshed(refreshed.response());
             
-        } catch (APIException e) {
-            refreshResult.put("success", false);
-            refreshResult.put("error", "Token refresh failed: " + e.getMessage());
-            refreshResult.put("apiError", true);
         } catch (Exception e) {
-            refreshResult.put("success", false);
-            refreshResult.put("error", "Unexpected error during token refresh: " + e.getMessage());
-            refreshResult.put("apiError", false);
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            
+            if (cause instanceof APIException) {
+                return TokenRefreshResult.failed("Token refresh failed: " + cause.getMessage(), true);
+            }
+            return TokenRefreshResult.failed("Unexpected error during token refresh: " + cause.getMessage(), false);
         }
-        
-        return refreshResult;
     }
 
     /**
      * Get the current refresh token
      */
     public String getCurrentRefreshToken() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        OAuth2AuthorizedClient authorizedClient = currentSnapshot().client();
         
-        if (authentication instanceof OAuth2AuthenticationToken oauth2Token) {
-            OAuth2AuthorizedClient authorizedClient = authorizedClientService
-                .loadAuthorizedClient(oauth2Token.getAuthorizedClientRegistrationId(), oauth2Token.getName());
-            
-            if (authorizedClient != null && authorizedClient.getRefreshToken() != null) {
-                return authorizedClient.getRefreshToken().getTokenValue();
-            }
+        if (authorizedClient != null && authorizedClient.getRefreshToken() != null) {
+            return authorizedClient.getRefreshToken().getTokenValue();
         }
         
         return null;
     }
 
     /**
-     * Update the OAuth2AuthorizedClient with new tokens from the refresh response
+     * Resolve the current user's authorized client once per request and share it across
+     * all service methods; outside a request the client is loaded on every call.
      */
-    private boolean updateOAuth2AuthorizedClientWithNewTokens(AuthenticationResponse authResponse) {
-        try {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            
-            if (authentication instanceof OAuth2AuthenticationToken oauth2Token) {
-                // Get the current authorized client
-                OAuth2AuthorizedClient currentClient = authorizedClientService
-                    .loadAuthorizedClient(oauth2Token.getAuthorizedClientRegistrationId(), oauth2Token.getName());
-                
-                if (currentClient != null) {
-                    // Get the client registration
-                    ClientRegistration clientRegistration = clientRegistrationRepository
-                        .findByRegistrationId(oauth2Token.getAuthorizedClientRegistrationId());
-                    
-                    if (clientRegistration != null) {
-                        // Create new access token
-                        OAuth2AccessToken newAccessToken = new OAuth2AccessToken(
-                            OAuth2AccessToken.TokenType.BEARER,
-                            authResponse.getAccessToken(),
-                            Instant.now(),
-                            Instant.now().plusSeconds(3600) // Default 1 hour expiry
-                        );
-                        
-                        // Create new refresh token if provided
-                        OAuth2RefreshToken newRefreshToken = null;
-                        if (authResponse.getRefreshToken() != null) {
-                            newRefreshToken = new OAuth2RefreshToken(authResponse.getRefreshToken(), Instant.now());
-                        }
-                        
-                        // Create new authorized client with updated tokens
-                        OAuth2AuthorizedClient updatedClient = new OAuth2AuthorizedClient(
-                            clientRegistration,
-                            oauth2Token.getName(),
-                            newAccessToken,
-                            newRefreshToken
-                        );
-                        
-                        // Save the updated client
-                        authorizedClientService.saveAuthorizedClient(updatedClient, oauth2Token);
-                        
-                        return true;
-                    }
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("Error updating OAuth2AuthorizedClient with new tokens: " + e.getMessage());
-            e.printStackTrace();
+    private AuthorizedClientSnapshot currentSnapshot() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        
+        if (!(authentication instanceof OAuth2AuthenticationToken oauth2Token)) {
+            return AuthorizedClientSnapshot.EMPTY;
         }
         
-        return false;
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes != null
+                && requestAttributes.getAttribute(SNAPSHOT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST)
+                        instanceof AuthorizedClientSnapshot snapshot) {
+            return snapshot;
+        }
+        
+        OAuth2AuthorizedClient authorizedClient = authorizedClientService
+            .loadAuthorizedClient(oauth2Token.getAuthorizedClientRegistrationId(), oauth2Token.getName());
+        AuthorizedClientSnapshot snapshot = AuthorizedClientSnapshot.of(authorizedClient);
+        
+        if (requestAttributes != null) {
+            requestAttributes.setAttribute(SNAPSHOT_ATTRIBUTE, snapshot, RequestAttributes.SCOPE_REQUEST);
+        }
+        return snapshot;
+    }
+
+    private void clearSnapshot() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes != null) {
+            requestAttributes.removeAttribute(SNAPSHOT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    /**
+     * Authorized client plus expiry data derived from a single point in time
+     */
+    private record AuthorizedClientSnapshot(OAuth2AuthorizedClient client, Instant expiresAt,
+                                            long minutesUntilExpiry, boolean expired, boolean expiringSoon) {
+
+        static final AuthorizedClientSnapshot EMPTY = new AuthorizedClientSnapshot(null, null, 0, false, false);
+
+        static AuthorizedClientSnapshot of(OAuth2AuthorizedClient client) {
+            if (client == null || client.getAccessToken() == null || client.getAccessToken().getExpiresAt() == null) {
+                return new AuthorizedClientSnapshot(client, null, 0, false, false);
+            }
+            
+            Instant expiresAt = client.getAccessToken().getExpiresAt();
+            TokenExpiryInfo expiry = TokenExpiryInfo.at(expiresAt, Instant.now());
+            return new AuthorizedClientSnapshot(client, expiresAt, expiry.minutesUntilExpiry(),
+                expiry.expired(), expiry.expiringSoon());
+        }
     }
 
 }
@@ -0,0 +1,30 @@
+package com.example.scalekit.service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Access token expiry for display; all fields are empty when the expiry is unknown
+ */
+public record TokenExpiryInfo(Instant expiresAt, long minutesUntilExpiry, boolean expired, boolean expiringSoon,
+                              String expiryDisplay) {
+
+    public static final TokenExpiryInfo UNKNOWN = new TokenExpiryInfo(null, 0, false, false, null);
+
+    private static final long EXPIRING_SOON_MINUTES = 5;
+
+    /**
+     * Expiry as seen at the given time; a token is expiring soon within its last five minutes
+     */
+    public static TokenExpiryInfo at(Instant expiresAt, Instant now) {
+        long minutesUntilExpiry = ChronoUnit.MINUTES.between(now, expiresAt);
+        return of(expiresAt, minutesUntilExpiry, now.isAfter(expiresAt), minutesUntilExpiry <= EXPIRING_SOON_MINUTES);
+    }
+
+    public static TokenExpiryInfo of(Instant expiresAt, long minutesUntilExpiry, boolean expired, boolean expiringSoon) {
+        String expiryDisplay = minutesUntilExpiry > 60
+                ? minutesUntilExpiry / 60 + " hours"
+                : minutesUntilExpiry + " minutes";
+        return new TokenExpiryInfo(expiresAt, minutesUntilExpiry, expired, expiringSoon, expiryDisplay);
+    }
+}
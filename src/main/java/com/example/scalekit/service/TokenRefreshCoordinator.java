@@ -0,0 +1,330 @@
+package com.example.scalekit.service;
+
+import com.example.scalekit.resilience.ScalekitCallGuard;
+import com.example.scalekit.resilience.ScalekitCallGuard.OperationGroup;
+import com.example.scalekit.store.RefreshLock;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.scalekit.ScalekitClient;
+import com.scalekit.internal.http.AuthenticationResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.security.authentication.event.LogoutSuccessEvent;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.session.SessionDestroyedEvent;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.support.ServletRequestHandledEvent;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coordinates access token refreshes per principal and client registration.
+ *
+ * Concurrent refresh requests for the same principal share one in-flight future, so the
+ * refresh token is presented upstream once even when several requests notice an expiring
+ * token at the same time. Principals that logged in are also refreshed ahead of expiry by
+ * a background check, for as long as they keep using the app: a principal stops being
+ * tracked when its session is destroyed or has been idle for longer than the session
+ * timeout, and the number of tracked principals is capped.
+ *
+ * Across nodes, each refresh runs under the principal's {@link RefreshLock} and reads the
+ * stored refresh token only once it holds the lock, so a node never presents a refresh
+ * token that another node has already rotated.
+ */
+@Component
+public class TokenRefreshCoordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRefreshCoordinator.class);
+
+    @Autowired
+    private OAuth2AuthorizedClientService authorizedClientService;
+
+    @Autowired
+    private ScalekitClient scalekitClient;
+
+    @Autowired
+    private LocalAccessTokenValidator accessTokenValidator;
+
+    @Autowired
+    private ScalekitCallGuard callGuard;
+
+    @Autowired
+    private RefreshLock refreshLock;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    @Qualifier("scalekitTaskExecutor")
+    private AsyncTaskExecutor executor;
+
+    @Value("${scalekit.token-refresh.proactive:true}")
+    private boolean proactive;
+
+    @Value("${scalekit.token-refresh.refresh-ahead:5m}")
+    private Duration refreshAhead;
+
+    @Value("${scalekit.token-refresh.default-lifetime:1h}")
+    private Duration defaultLifetime;
+
+    @Value("${scalekit.token-refresh.max-tracked-principals:10000}")
+    private long maxTrackedPrincipals;
+
+    @Value("${spring.session.timeout:${server.servlet.session.timeout:30m}}")
+    private Duration sessionTimeout;
+
+    private final Map<String, CompletableFuture<RefreshedTokens>> inFlight = new ConcurrentHashMap<>();
+
+    private Cache<String, TrackedPrincipal> trackedPrincipals;
+
+    @PostConstruct
+    void initTracking() {
+        trackedPrincipals = Caffeine.newBuilder()
+                .maximumSize(maxTrackedPrincipals)
+                .build();
+    }
+
+    /**
+     * Refresh the principal's tokens, joining a refresh that is already in flight
+     */
+    public CompletableFuture<RefreshedTokens> refresh(Authentication principal, String registrationId) {
+        String key = key(registrationId, principal.getName());
+        // Background refreshes must not count as activity, so only start tracking here
+        trackedPrincipals.asMap().putIfAbsent(key, new TrackedPrincipal(principal, registrationId));
+
+        CompletableFuture<RefreshedTokens> refresh = new CompletableFuture<>();
+        CompletableFuture<RefreshedTokens> existing = inFlight.putIfAbsent(key, refresh);
+        if (existing != null) {
+            return existing;
+        }
+
+        try {
+            executor.execute(() -> {
+                Timer.Sample sample = Timer.start(meterRegistry);
+                String outcome = "error";
+                // Leave the in-flight map before completing, so a caller reacting to the
+                // result starts a new refresh instead of joining this finished one
+                try {
+                    RefreshedTokens refreshed = refreshAndSave(principal, registrationId);
+                    outcome = "success";
+                    inFlight.remove(key, refresh);
+                    refresh.complete(refreshed);
+                } catch (Throwable e) {
+                    inFlight.remove(key, refresh);
+                    refresh.completeExceptionally(e);
+                } finally {
+                    sample.stop(meterRegistry.timer("scalekit.token.refresh", "outcome", outcome));
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, refresh);
+            refresh.completeExceptionally(e);
+        }
+        return refresh;
+    }
+
+    /**
+     * Refresh tracked principals whose access token expires within the refresh-ahead window,
+     * dropping those whose session has been idle for longer than the session timeout
+     */
+    @Scheduled(fixedDelayString = "${scalekit.token-refresh.check-interval:PT1M}")
+    public void refreshExpiringTokens() {
+        if (!proactive) {
+            return;
+        }
+
+        Instant now = Instant.now();
+        Instant threshold = now.plus(refreshAhead);
+        Instant idleSince = now.minus(sessionTimeout);
+        trackedPrincipals.asMap().forEach((key, tracked) -> {
+            if (tracked.lastSeen.isBefore(idleSince)) {
+                trackedPrincipals.asMap().remove(key, tracked);
+                return;
+            }
+
+            OAuth2AuthorizedClient client = authorizedClientService
+                .loadAuthorizedClient(tracked.registrationId, tracked.principal.getName());
+
+            if (client == null || client.getRefreshToken() == null) {
+                trackedPrincipals.asMap().remove(key, tracked);
+                return;
+            }
+
+            Instant expiresAt = client.getAccessToken().getExpiresAt();
+            if (expiresAt != null && expiresAt.isBefore(threshold)) {
+                refresh(tracked.principal, tracked.registrationId).exceptionally(e -> {
+                    logger.warn("Background token refresh failed for {}, no longer tracking it", key, e);
+                    trackedPrincipals.asMap().remove(key, tracked);
+                    return null;
+                });
+            }
+        });
+    }
+
+    @EventListener
+    public void onAuthenticationSuccess(AuthenticationSuccessEvent event) {
+        if (event.getAuthentication() instanceof OAuth2AuthenticationToken oauth2Token) {
+            track(oauth2Token, oauth2Token.getAuthorizedClientRegistrationId());
+        }
+    }
+
+    /**
+     * Mark the signed-in principal as active. The event is published on the request thread,
+     * inside the security filter chain, so the request's authentication is still current.
+     */
+    @EventListener
+    public void onRequestHandled(ServletRequestHandledEvent event) {
+        if (event.getUserName() != null
+                && SecurityContextHolder.getContext().getAuthentication() instanceof OAuth2AuthenticationToken oauth2Token) {
+            track(oauth2Token, oauth2Token.getAuthorizedClientRegistrationId());
+        }
+    }
+
+    @EventListener
+    public void onLogoutSuccess(LogoutSuccessEvent event) {
+        if (event.getAuthentication() instanceof OAuth2AuthenticationToken oauth2Token) {
+            untrack(oauth2Token);
+        }
+    }
+
+    /**
+     * Stop tracking the principals of a destroyed session; one still signed in elsewhere is
+     * tracked again on its next request
+     */
+    @EventListener
+    public void onSessionDestroyed(SessionDestroyedEvent event) {
+        for (SecurityContext context : event.getSecurityContexts()) {
+            if (context.getAuthentication() instanceof OAuth2AuthenticationToken oauth2Token) {
+                untrack(oauth2Token);
+            }
+        }
+    }
+
+    private void track(Authentication principal, String registrationId) {
+        TrackedPrincipal tracked = trackedPrincipals.asMap().computeIfAbsent(key(registrationId, principal.getName()),
+            k -> new TrackedPrincipal(principal, registrationId));
+        tracked.lastSeen = Instant.now();
+    }
+
+    private void untrack(OAuth2AuthenticationToken oauth2Token) {
+        trackedPrincipals.invalidate(key(oauth2Token.getAuthorizedClientRegistrationId(), oauth2Token.getName()));
+    }
+
+    private RefreshedTokens refreshAndSave(Authentication principal, String registrationId) {
+        try (RefreshLock.Lease lease = refreshLock.acquire(registrationId, principal.getName())) {
+            return refreshAndSaveLocked(principal, registrationId);
+        }
+    }
+
+    private RefreshedTokens refreshAndSaveLocked(Authentication principal, String registrationId) {
+        // Always use the latest stored refresh token, which a previous refresh, possibly on
+        // another node, may have rotated
+        OAuth2AuthorizedClient currentClient = authorizedClientService
+            .loadAuthorizedClient(registrationId, principal.getName());
+
+        if (currentClient == null || currentClient.getRefreshToken() == null) {
+            throw new IllegalStateException("No refresh token available");
+        }
+
+        String refreshToken = currentClient.getRefreshToken().getTokenValue();
+        AuthenticationResponse authResponse = callGuard.call(OperationGroup.AUTH, "refresh-access-token",
+            () -> scalekitClient.authentication().refreshAccessToken(refreshToken));
+
+        if (authResponse == null) {
+            throw new IllegalStateException("No response from token refresh");
+        }
+
+        Instant issuedAt = Instant.now();
+        OAuth2AccessToken newAccessToken = new OAuth2AccessToken(
+            OAuth2AccessToken.TokenType.BEARER,
+            authResponse.getAccessToken(),
+            issuedAt,
+            expiresAt(authResponse.getAccessToken(), issuedAt),
+            currentClient.getAccessToken().getScopes()
+        );
+
+        // Keep the current refresh token unless the provider rotated it
+        OAuth2RefreshToken newRefreshToken = authResponse.getRefreshToken() != null
+            ? new OAuth2RefreshToken(authResponse.getRefreshToken(), issuedAt)
+            : currentClient.getRefreshToken();
+
+        OAuth2AuthorizedClient updatedClient = new OAuth2AuthorizedClient(
+            currentClient.getClientRegistration(),
+            principal.getName(),
+            newAccessToken,
+            newRefreshToken
+        );
+        authorizedClientService.saveAuthorizedClient(updatedClient, principal);
+        eventPublisher.publishEvent(
+            new TokensRefreshedEvent(registrationId, principal.getName(), newAccessToken.getExpiresAt()));
+
+        return new RefreshedTokens(authResponse, updatedClient);
+    }
+
+    /**
+     * Expiry from the new token's exp claim, falling back to the default lifetime
+     */
+    private Instant expiresAt(String accessToken, Instant issuedAt) {
+        try {
+            if (accessTokenValidator.validate(accessToken).get("exp") instanceof Number exp) {
+                return Instant.ofEpochSecond(exp.longValue());
+            }
+        } catch (JwtException e) {
+            logger.warn("Could not read expiry from refreshed access token: {}", e.getMessage());
+        }
+        return issuedAt.plus(defaultLifetime);
+    }
+
+    private static String key(String registrationId, String principalName) {
+        return registrationId + ":" + principalName;
+    }
+
+    /**
+     * Tokens returned by the provider together with the authorized client saved from them
+     */
+    public record RefreshedTokens(AuthenticationResponse response, OAuth2AuthorizedClient authorizedClient) {
+    }
+
+    /**
+     * A principal refreshed in the background, with the last time it was active
+     */
+    private static final class TrackedPrincipal {
+
+        private final Authentication principal;
+
+        private final String registrationId;
+
+        private volatile Instant lastSeen = Instant.now();
+
+        TrackedPrincipal(Authentication principal, String registrationId) {
+            this.principal = principal;
+            this.registrationId = registrationId;
+        }
+    }
+}
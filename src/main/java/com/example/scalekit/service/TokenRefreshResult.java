@@ -0,0 +1,31 @@
+package com.example.scalekit.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.scalekit.internal.http.AuthenticationResponse;
+
+/**
+ * Outcome of refreshing the current user's tokens
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TokenRefreshResult(boolean success, String message, String error, Boolean apiError,
+                                 String newAccessToken, String newRefreshToken, String newIdToken,
+                                 Boolean tokensUpdatedInContext, String note) {
+
+    public static TokenRefreshResult refreshed(AuthenticationResponse response) {
+        return new TokenRefreshResult(true, "Tokens refreshed successfully", null, null,
+                response.getAccessToken(), response.getRefreshToken(), response.getIdToken(),
+                true, "New tokens have been updated in the session context.");
+    }
+
+    public static TokenRefreshResult failed(String error, boolean apiError) {
+        return new TokenRefreshResult(false, null, error, apiError, null, null, null, null, null);
+    }
+
+    /**
+     * No refresh token stored; unlike a failed refresh this carries no apiError flag
+     */
+    public static TokenRefreshResult noRefreshToken() {
+        return new TokenRefreshResult(false, null, "No refresh token available", null,
+                null, null, null, null, null);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.scalekit.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Map;
+
+/**
+ * Outcome of validating the current access token, with the most used claims pulled out
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TokenValidationResult(boolean valid, String message, String error, Boolean apiError,
+                                    Map<String, Object> claims, String userId, String email, String name,
+                                    Long exp, Long iat, String iss, Object aud) {
+
+    public static TokenValidationResult valid(Map<String, Object> claims) {
+        if (claims == null) {
+            return new TokenValidationResult(true, "Token is valid", null, null,
+                    null, null, null, null, null, null, null, null);
+        }
+        return new TokenValidationResult(true, "Token is valid", null, null, claims,
+                string(claims.get("sub")), string(claims.get("email")), string(claims.get("name")),
+                epochSeconds(claims.get("exp")), epochSeconds(claims.get("iat")), string(claims.get("iss")),
+                claims.get("aud"));
+    }
+
+    public static TokenValidationResult invalid(String error, boolean apiError) {
+        return new TokenValidationResult(false, null, error, apiError,
+                null, null, null, null, null, null, null, null);
+    }
+
+    /**
+     * No token to validate; unlike a failed validation this carries no apiError flag
+     */
+    public static TokenValidationResult missingToken() {
+        return new TokenValidationResult(false, null, "No access token found", null,
+                null, null, null, null, null, null, null, null);
+    }
+
+    private static String string(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    private static Long epochSeconds(Object value) {
+        return value instanceof Number number ? number.longValue() : null;
+    }
+}
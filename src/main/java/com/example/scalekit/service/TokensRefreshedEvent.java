@@ -0,0 +1,9 @@
+package com.example.scalekit.service;
+
+import java.time.Instant;
+
+/**
+ * Published after a principal's refreshed tokens have been saved
+ */
+public record TokensRefreshedEvent(String registrationId, String principalName, Instant accessTokenExpiresAt) {
+}
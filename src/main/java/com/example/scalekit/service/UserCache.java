@@ -0,0 +1,120 @@
+package com.example.scalekit.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.scalekit.grpc.scalekit.v1.users.GetUserResponse;
+import com.scalekit.grpc.scalekit.v1.users.ListOrganizationUsersResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for Scalekit user lookups.
+ *
+ * Entries expire after the configured TTL and are bounded in number (W-TinyLFU eviction).
+ * List pages are keyed by a membership generation, so bumping the generation makes every
+ * cached page unreachable at once, including pages still being loaded.
+ */
+@Lazy
+@Component
+public class UserCache {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${scalekit.user-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${scalekit.user-cache.ttl:5m}")
+    private Duration ttl;
+
+    @Value("${scalekit.user-cache.max-users:10000}")
+    private long maxUsers;
+
+    @Value("${scalekit.user-cache.max-pages:500}")
+    private long maxPages;
+
+    private final AtomicLong membershipGeneration = new AtomicLong();
+
+    private Cache<String, GetUserResponse> users;
+
+    private Cache<PageKey, ListOrganizationUsersResponse> pages;
+
+    @PostConstruct
+    void initCaches() {
+        users = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxUsers)
+                .recordStats()
+                .build();
+        pages = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxPages)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "scalekit.users");
+        CaffeineCacheMetrics.monitor(meterRegistry, pages, "scalekit.user-pages");
+    }
+
+    /**
+     * Get a user, loading it on a miss
+     */
+    public GetUserResponse getUser(String userId, Supplier<GetUserResponse> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        return users.get(userId, id -> loader.get());
+    }
+
+    /**
+     * Get a page of organization users, loading it on a miss
+     */
+    public ListOrganizationUsersResponse getPage(int pageSize, String pageToken,
+                                                 Supplier<ListOrganizationUsersResponse> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        PageKey key = new PageKey(membershipGeneration.get(), pageSize, pageToken);
+        return pages.get(key, k -> loader.get());
+    }
+
+    /**
+     * Drop a user whose profile changed, along with any cached page listing them
+     */
+    public void invalidateUser(String userId) {
+        users.invalidate(userId);
+        pages.asMap().values().removeIf(page -> page.getUsersList().stream()
+                .anyMatch(user -> user.getId().equals(userId)));
+    }
+
+    /**
+     * Drop every cached page after the organization's membership changed
+     */
+    public void invalidateMembership(String userId) {
+        if (userId != null) {
+            users.invalidate(userId);
+        }
+        membershipGeneration.incrementAndGet();
+        pages.invalidateAll();
+    }
+
+    public CacheStats userStats() {
+        return users.stats();
+    }
+
+    public CacheStats pageStats() {
+        return pages.stats();
+    }
+
+    private record PageKey(long generation, int pageSize, String pageToken) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.scalekit.service;
+
+import com.scalekit.grpc.scalekit.v1.users.User;
+
+/**
+ * Published after a user of the organization was written through {@link UserService}.
+ * The user is included when the write returned it, otherwise null; removed means the user
+ * is no longer part of the organization.
+ */
+public record UserChangedEvent(String userId, User user, boolean removed) {
+
+    public static UserChangedEvent changed(String userId, User user) {
+        return new UserChangedEvent(userId, user, false);
+    }
+
+    public static UserChangedEvent removed(String userId) {
+        return new UserChangedEvent(userId, null, true);
+    }
+}
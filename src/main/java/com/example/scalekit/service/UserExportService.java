@@ -0,0 +1,157 @@
+package com.example.scalekit.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.scalekit.grpc.scalekit.v1.users.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams every user in the organization to an output stream, one page at a time.
+ *
+ * The response is committed with the first page, so a failure further on cannot change
+ * the status; the stream then ends with an error line instead, so a truncated export is
+ * never mistaken for a complete one.
+ */
+@Lazy
+@Service
+public class UserExportService {
+
+    public enum Format {
+        NDJSON("ndjson", MediaType.parseMediaType("application/x-ndjson")),
+        CSV("csv", MediaType.parseMediaType("text/csv"));
+
+        private final String extension;
+        private final MediaType mediaType;
+
+        Format(String extension, MediaType mediaType) {
+            this.extension = extension;
+            this.mediaType = mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public static Format from(String value) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported export format: " + value);
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(UserExportService.class);
+
+    private static final String CSV_HEADER = "id,email,name,firstName,lastName,createTime";
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Write all organization users in the given format, flushing after every page. The page
+     * size is clamped to 1..100.
+     */
+    public void export(Format format, int pageSize, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        ObjectWriter jsonWriter = objectMapper.writerFor(UserSummary.class);
+        AtomicLong exported = new AtomicLong();
+
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        try {
+            userService.forEachOrganizationUsersPage(Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE)), users -> {
+                try {
+                    for (User user : users) {
+                        UserSummary summary = UserSummary.from(user);
+                        if (format == Format.CSV) {
+                            writeCsvRow(writer, summary);
+                        } else {
+                            writer.write(jsonWriter.writeValueAsString(summary));
+                        }
+                        writer.write('\n');
+                        exported.incrementAndGet();
+                    }
+                    writer.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (RuntimeException e) {
+            logger.warn("User export failed after {} users: {}", exported.get(), e.getMessage());
+            writeErrorMarker(writer, format, exported.get());
+            throw e;
+        }
+        writer.flush();
+    }
+
+    private void writeErrorMarker(Writer writer, Format format, long exported) throws IOException {
+        String message = "Export incomplete: failed after " + exported + " users";
+        if (format == Format.CSV) {
+            writer.write("#ERROR," + message);
+        } else {
+            writer.write(objectMapper.writeValueAsString(Map.of("error", message)));
+        }
+        writer.write('\n');
+        writer.flush();
+    }
+
+    private static void writeCsvRow(Writer writer, UserSummary summary) throws IOException {
+        writer.write(csv(summary.id()));
+        writer.write(',');
+        writer.write(csv(summary.email()));
+        writer.write(',');
+        writer.write(csv(summary.name()));
+        writer.write(',');
+        writer.write(csv(summary.firstName()));
+        writer.write(',');
+        writer.write(csv(summary.lastName()));
+        writer.write(',');
+        writer.write(summary.createTime() != null ? summary.createTime().toString() : "");
+    }
+
+    private static String csv(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        // Keep spreadsheets from evaluating the cell as a formula
+        char first = value.charAt(0);
+        if (first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r') {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+}
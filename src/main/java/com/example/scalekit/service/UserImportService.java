@@ -0,0 +1,415 @@
+package com.example.scalekit.service;
+
+import com.example.scalekit.resilience.ScalekitUnavailableException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scalekit.grpc.scalekit.v1.users.CreateUser;
+import com.scalekit.grpc.scalekit.v1.users.CreateUserAndMembershipResponse;
+import com.scalekit.grpc.scalekit.v1.users.CreateUserProfile;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk user import: rows are parsed from a CSV or JSON upload as a stream and fed to
+ * {@link UserService#createUserAndMembership} through a bounded number of concurrent,
+ * rate-limited workers. Transient upstream failures are retried with exponential backoff,
+ * except for a create that timed out: it may have gone through, so it is reported as
+ * UNKNOWN rather than risk creating the user twice. A malformed row is reported as failed;
+ * an upload without the expected CSV header or JSON array is rejected outright.
+ */
+@Lazy
+@Service
+public class UserImportService {
+
+    public enum Format {
+        CSV, JSON;
+
+        public static Format fromFilename(String filename) {
+            if (filename != null && filename.toLowerCase(Locale.ROOT).endsWith(".json")) {
+                return JSON;
+            }
+            return CSV;
+        }
+    }
+
+    public enum RowStatus {
+        CREATED, FAILED, UNKNOWN
+    }
+
+    public record ImportRow(String email, String name, String firstName, String lastName, String phoneNumber) {
+    }
+
+    public record RowResult(int row, String email, RowStatus status, String userId, String error, int attempts) {
+    }
+
+    public record ImportReport(int total, int created, int failed, int unknown, long durationMillis,
+                               List<RowResult> rows) {
+    }
+
+    /**
+     * The upload is not a CSV file with an email column or a JSON array of users
+     */
+    public static class MalformedImportException extends IllegalArgumentException {
+
+        public MalformedImportException(String message) {
+            super(message);
+        }
+    }
+
+    private static final Set<Status.Code> RETRYABLE_CODES = Set.of(
+            Status.Code.UNAVAILABLE, Status.Code.RESOURCE_EXHAUSTED, Status.Code.ABORTED);
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("scalekitTaskExecutor")
+    private AsyncTaskExecutor executor;
+
+    @Value("${scalekit.user-import.concurrency:8}")
+    private int concurrency;
+
+    @Value("${scalekit.user-import.requests-per-second:20}")
+    private double requestsPerSecond;
+
+    @Value("${scalekit.user-import.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${scalekit.user-import.initial-backoff:200ms}")
+    private Duration initialBackoff;
+
+    /**
+     * Import every row of the upload and report the outcome per row
+     */
+    public ImportReport importUsers(InputStream inputStream, Format format, boolean sendInvitationEmail)
+            throws IOException, InterruptedException {
+        long startedAt = System.nanoTime();
+        Semaphore permits = new Semaphore(concurrency);
+        RateLimiter rateLimiter = new RateLimiter(requestsPerSecond);
+        Queue<RowResult> results = new ConcurrentLinkedQueue<>();
+        int[] rowCounter = {0};
+
+        RowSink submitter = new RowSink() {
+            @Override
+            public void malformed(String error) {
+                results.add(new RowResult(++rowCounter[0], null, RowStatus.FAILED, null, error, 0));
+            }
+
+            @Override
+            public void accept(ImportRow row) {
+                int rowNumber = ++rowCounter[0];
+                try {
+                    // Blocks the parser while all workers are busy, so unread rows stay in the upload
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Import interrupted", e);
+                }
+                try {
+                    executor.execute(() -> {
+                        try {
+                            results.add(importRow(rowNumber, row, sendInvitationEmail, rateLimiter));
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    permits.release();
+                    results.add(new RowResult(rowNumber, row.email(), RowStatus.FAILED, null, e.getMessage(), 0));
+                }
+            }
+        };
+
+        try {
+            if (format == Format.JSON) {
+                parseJson(inputStream, submitter);
+            } else {
+                parseCsv(inputStream, submitter);
+            }
+        } finally {
+            // Wait for the rows already submitted
+            permits.acquire(concurrency);
+        }
+
+        List<RowResult> rows = new ArrayList<>(results);
+        rows.sort(Comparator.comparingInt(RowResult::row));
+        int created = (int) rows.stream().filter(r -> r.status() == RowStatus.CREATED).count();
+        int unknown = (int) rows.stream().filter(r -> r.status() == RowStatus.UNKNOWN).count();
+        long durationMillis = Duration.ofNanos(System.nanoTime() - startedAt).toMillis();
+        return new ImportReport(rows.size(), created, rows.size() - created - unknown, unknown, durationMillis, rows);
+    }
+
+    private RowResult importRow(int rowNumber, ImportRow row, boolean sendInvitationEmail, RateLimiter rateLimiter) {
+        if (row.email() == null || row.email().isBlank()) {
+            return new RowResult(rowNumber, row.email(), RowStatus.FAILED, null, "Email is required", 0);
+        }
+
+        CreateUser createUser = toCreateUser(row);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                rateLimiter.acquire();
+                CreateUserAndMembershipResponse response = userService.createUserAndMembership(createUser, sendInvitationEmail);
+                return new RowResult(rowNumber, row.email(), RowStatus.CREATED, response.getUser().getId(), null, attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new RowResult(rowNumber, row.email(), RowStatus.FAILED, null, "Import interrupted", attempt);
+            } catch (Exception e) {
+                if (isTimeout(e)) {
+                    return new RowResult(rowNumber, row.email(), RowStatus.UNKNOWN, null,
+                            "Timed out waiting for Scalekit; the user may have been created", attempt);
+                }
+                if (attempt > 1 && hasStatus(e, Status.Code.ALREADY_EXISTS)) {
+                    return new RowResult(rowNumber, row.email(), RowStatus.UNKNOWN, null,
+                            "Already exists on retry; an earlier attempt may have created the user", attempt);
+                }
+                if (attempt >= maxAttempts || !isRetryable(e)) {
+                    return new RowResult(rowNumber, row.email(), RowStatus.FAILED, null, e.getMessage(), attempt);
+                }
+                if (!backoff(attempt)) {
+                    return new RowResult(rowNumber, row.email(), RowStatus.FAILED, null, "Import interrupted", attempt);
+                }
+            }
+        }
+    }
+
+    private boolean backoff(int attempt) {
+        long baseMillis = initialBackoff.toMillis() << (attempt - 1);
+        long jitterMillis = ThreadLocalRandom.current().nextLong(baseMillis / 2 + 1);
+        try {
+            Thread.sleep(baseMillis + jitterMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Whether the call hit its deadline, after which the create may or may not have happened
+     */
+    private static boolean isTimeout(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return hasStatus(e, Status.Code.DEADLINE_EXCEEDED);
+    }
+
+    private static boolean hasStatus(Throwable e, Status.Code code) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof StatusRuntimeException statusException) {
+                return statusException.getStatus().getCode() == code;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Failures where the create never reached Scalekit or was turned away, e.g. an open
+     * circuit, a full bulkhead or rate limiting
+     */
+    private static boolean isRetryable(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ScalekitUnavailableException) {
+                return true;
+            }
+            if (cause instanceof StatusRuntimeException statusException) {
+                return RETRYABLE_CODES.contains(statusException.getStatus().getCode());
+            }
+        }
+        return false;
+    }
+
+    private static CreateUser toCreateUser(ImportRow row) {
+        CreateUserProfile.Builder profileBuilder = CreateUserProfile.newBuilder();
+        if (hasText(row.name())) {
+            profileBuilder.setName(row.name().trim());
+        }
+        if (hasText(row.firstName())) {
+            profileBuilder.setFirstName(row.firstName().trim());
+        }
+        if (hasText(row.lastName())) {
+            profileBuilder.setLastName(row.lastName().trim());
+        }
+        if (hasText(row.phoneNumber())) {
+            profileBuilder.setPhoneNumber(row.phoneNumber().trim());
+        }
+        return CreateUser.newBuilder()
+                .setEmail(row.email().trim())
+                .setUserProfile(profileBuilder.build())
+                .build();
+    }
+
+    /**
+     * Read the users array one object at a time. After a syntax error the rest of the stream
+     * cannot be trusted, so it is reported as a malformed row and reading stops.
+     */
+    private void parseJson(InputStream inputStream, RowSink rowSink) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            try {
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    throw new MalformedImportException("Expected a JSON array of users");
+                }
+            } catch (JsonProcessingException e) {
+                throw new MalformedImportException("Expected a JSON array of users: " + e.getOriginalMessage());
+            }
+            try {
+                JsonToken token;
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (token != JsonToken.START_OBJECT) {
+                        rowSink.malformed("Expected a user object, found "
+                                + (token != null ? token : "end of input") + "; import stopped");
+                        return;
+                    }
+                    rowSink.accept(objectMapper.readValue(parser, ImportRow.class));
+                }
+            } catch (JsonProcessingException e) {
+                rowSink.malformed("Malformed JSON: " + e.getOriginalMessage() + "; import stopped");
+            }
+        }
+    }
+
+    private static void parseCsv(InputStream inputStream, RowSink rowSink) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            String headerLine = reader.readLine();
+            if (headerLine == null) {
+                return;
+            }
+
+            Map<String, Integer> columns = new HashMap<>();
+            List<String> header = splitCsvLine(headerLine);
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            if (!columns.containsKey("email")) {
+                throw new MalformedImportException("CSV header must include an email column");
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                List<String> values = splitCsvLine(line);
+                if (values == null) {
+                    rowSink.malformed("Unterminated quoted value");
+                    continue;
+                }
+                rowSink.accept(new ImportRow(
+                        column(values, columns, "email"),
+                        column(values, columns, "name"),
+                        column(values, columns, "firstname"),
+                        column(values, columns, "lastname"),
+                        column(values, columns, "phonenumber")));
+            }
+        }
+    }
+
+    private static String column(List<String> values, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        return index != null && index < values.size() ? values.get(index) : null;
+    }
+
+    /**
+     * Split one CSV line, honouring double-quoted values with "" escapes; null when a quoted
+     * value is not closed
+     */
+    private static List<String> splitCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    /**
+     * Receives parsed rows, and rows that could not be parsed
+     */
+    private interface RowSink {
+
+        void accept(ImportRow row);
+
+        void malformed(String error);
+    }
+
+    /**
+     * Spaces calls evenly at the configured rate across all workers of one import
+     */
+    private static final class RateLimiter {
+
+        private final long intervalNanos;
+        private final AtomicLong nextSlot = new AtomicLong(System.nanoTime());
+
+        RateLimiter(double permitsPerSecond) {
+            this.intervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+        }
+
+        void acquire() throws InterruptedException {
+            long now = System.nanoTime();
+            long slot = nextSlot.getAndAccumulate(now, (next, current) -> Math.max(next, current) + intervalNanos);
+            long waitNanos = Math.max(slot, now) - now;
+            if (waitNanos > 0) {
+                Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+            }
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.example.scalekit.service;
+
+import com.scalekit.grpc.scalekit.v1.users.User;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-memory search index over the organization's users: email prefix, name token prefix
+ * and membership status.
+ *
+ * The index is built by streaming every page of users and swapped in whole, then kept
+ * current by {@link UserChangedEvent}s from the {@link UserService} write methods, and
+ * rebuilt periodically to pick up changes made elsewhere. Changes that arrive during a
+ * rebuild are replayed onto the new index. Searches never call Scalekit.
+ */
+@Component
+public class UserIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserIndex.class);
+
+    private static final Pattern NAME_SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final int MAX_LIMIT = 100;
+
+    /**
+     * Lazy, so the index can be scheduled without creating the user service at startup
+     */
+    @Lazy
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("scalekitTaskExecutor")
+    private AsyncTaskExecutor executor;
+
+    @Value("${scalekit.user-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${scalekit.user-index.page-size:100}")
+    private int pageSize;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private volatile Index current = new Index(null);
+
+    private volatile Queue<UserChangedEvent> changesDuringRebuild;
+
+    public record SearchResult(List<UserSummary> users, int total, Instant indexedAt) {
+    }
+
+    @PostConstruct
+    void registerGauge() {
+        Gauge.builder("scalekit.user-index.size", this, index -> index.current.byId.size())
+                .description("Users in the local search index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Users whose email, or one of whose name tokens, starts with every term of the query,
+     * optionally limited to a membership status, ordered by email
+     */
+    public SearchResult search(String query, String status, int limit) {
+        Index index = current;
+        int maxResults = Math.max(1, Math.min(limit, MAX_LIMIT));
+        String[] terms = Arrays.stream(NAME_SEPARATORS.split(normalize(query)))
+                .filter(term -> !term.isEmpty())
+                .toArray(String[]::new);
+        Set<String> withStatus = status == null || status.isBlank()
+                ? null
+                : index.byStatus.getOrDefault(status.trim().toUpperCase(Locale.ROOT), Set.of());
+
+        if (terms.length == 0) {
+            // The email map is already sorted, so only the first page of users is touched
+            Stream<String> userIds = index.byEmail.values().stream();
+            if (withStatus != null) {
+                userIds = userIds.filter(withStatus::contains);
+            }
+            return new SearchResult(summaries(index, userIds, maxResults),
+                    withStatus != null ? withStatus.size() : index.byId.size(), index.builtAt);
+        }
+
+        // Email terms match from the start of the address, so use the whole query there too
+        Set<String> matches = matches(index, normalize(query), terms);
+        if (withStatus != null) {
+            matches.retainAll(withStatus);
+        }
+        Stream<String> userIds = matches.stream()
+                .map(index.byId::get)
+                .filter(Objects::nonNull)
+                .sorted((a, b) -> a.email().compareTo(b.email()))
+                .map(entry -> entry.summary().id());
+        return new SearchResult(summaries(index, userIds, maxResults), matches.size(), index.builtAt);
+    }
+
+    /**
+     * Start a rebuild in the background, unless one is already running. The first run waits
+     * for the initial delay, so startup does not page through every user.
+     */
+    @Scheduled(initialDelayString = "${scalekit.user-index.initial-delay:PT1M}",
+            fixedDelayString = "${scalekit.user-index.refresh-interval:PT10M}")
+    public void scheduleRebuild() {
+        if (!enabled || !rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::rebuild);
+        } catch (TaskRejectedException e) {
+            rebuilding.set(false);
+            logger.warn("User index rebuild not started: {}", e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        Queue<UserChangedEvent> pending = changesDuringRebuild;
+        if (pending != null) {
+            pending.add(event);
+        }
+        apply(current, event);
+    }
+
+    void rebuild() {
+        long startedAt = System.nanoTime();
+        Queue<UserChangedEvent> pending = new ConcurrentLinkedQueue<>();
+        changesDuringRebuild = pending;
+        try {
+            Index index = new Index(Instant.now());
+            userService.forEachOrganizationUsersPage(pageSize, users -> users.forEach(index::put));
+            current = index;
+            changesDuringRebuild = null;
+            pending.forEach(event -> apply(index, event));
+
+            logger.info("User index rebuilt with {} users in {} ms", index.byId.size(),
+                    Duration.ofNanos(System.nanoTime() - startedAt).toMillis());
+        } catch (RuntimeException e) {
+            logger.warn("Could not rebuild the user index, keeping the previous one: {}", e.getMessage());
+        } finally {
+            changesDuringRebuild = null;
+            rebuilding.set(false);
+        }
+    }
+
+    private void apply(Index index, UserChangedEvent event) {
+        if (event.removed()) {
+            index.remove(event.userId());
+        } else if (event.user() != null) {
+            index.put(event.user());
+        } else {
+            // Membership writes don't return the user; the cache entry was just invalidated.
+            // This runs inside the write's event publication, so a full executor must not
+            // fail the write: the user keeps their old entry until the next rebuild.
+            try {
+                executor.execute(() -> {
+                    try {
+                        index.put(userService.getUser(event.userId()).getUser());
+                    } catch (RuntimeException e) {
+                        logger.debug("Could not reindex user {}: {}", event.userId(), e.getMessage());
+                    }
+                });
+            } catch (TaskRejectedException e) {
+                logger.debug("Not reindexing user {} until the next rebuild: {}", event.userId(), e.getMessage());
+            }
+        }
+    }
+
+    private static Set<String> matches(Index index, String query, String[] terms) {
+        Set<String> matches = null;
+        for (String term : terms) {
+            Set<String> termMatches = new HashSet<>(prefixed(index.byEmail, term).values());
+            prefixed(index.byNameToken, term).values().forEach(termMatches::addAll);
+            if (matches == null) {
+                matches = termMatches;
+            } else {
+                matches.retainAll(termMatches);
+            }
+        }
+        matches.addAll(prefixed(index.byEmail, query).values());
+        return matches;
+    }
+
+    private static <V> Map<String, V> prefixed(ConcurrentSkipListMap<String, V> map, String prefix) {
+        return map.subMap(prefix, true, prefix + Character.MAX_VALUE, true);
+    }
+
+    private static List<UserSummary> summaries(Index index, Stream<String> userIds, int limit) {
+        return userIds.map(index.byId::get)
+                .filter(Objects::nonNull)
+                .limit(limit)
+                .map(Entry::summary)
+                .toList();
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * What the index keeps per user
+     */
+    private record Entry(UserSummary summary, String email, Set<String> nameTokens, Set<String> statuses) {
+
+        static Entry of(User user) {
+            UserSummary summary = UserSummary.from(user);
+            Set<String> nameTokens = Stream.of(summary.name(), summary.firstName(), summary.lastName())
+                    .flatMap(name -> NAME_SEPARATORS.splitAsStream(normalize(name)))
+                    .filter(token -> !token.isEmpty())
+                    .collect(Collectors.toUnmodifiableSet());
+            Set<String> statuses = user.getMembershipsList().stream()
+                    .map(membership -> membership.getMembershipStatus().name())
+                    .collect(Collectors.toUnmodifiableSet());
+            return new Entry(summary, normalize(summary.email()), nameTokens, statuses);
+        }
+    }
+
+    /**
+     * One generation of the index. Reads are lock-free; writes are serialized so the
+     * secondary maps always agree with byId.
+     */
+    private static final class Index {
+
+        private final Instant builtAt;
+
+        private final Map<String, Entry> byId = new ConcurrentHashMap<>();
+
+        private final ConcurrentSkipListMap<String, String> byEmail = new ConcurrentSkipListMap<>();
+
+        private final ConcurrentSkipListMap<String, Set<String>> byNameToken = new ConcurrentSkipListMap<>();
+
+        private final Map<String, Set<String>> byStatus = new ConcurrentHashMap<>();
+
+        Index(Instant builtAt) {
+            this.builtAt = builtAt;
+        }
+
+        synchronized void put(User user) {
+            remove(user.getId());
+            Entry entry = Entry.of(user);
+            byId.put(user.getId(), entry);
+            byEmail.put(entry.email(), user.getId());
+            add(byNameToken, entry.nameTokens(), user.getId());
+            add(byStatus, entry.statuses(), user.getId());
+        }
+
+        synchronized void remove(String userId) {
+            Entry entry = byId.remove(userId);
+            if (entry == null) {
+                return;
+            }
+            byEmail.remove(entry.email(), userId);
+            discard(byNameToken, entry.nameTokens(), userId);
+            discard(byStatus, entry.statuses(), userId);
+        }
+
+        private static void add(Map<String, Set<String>> map, Collection<String> keys, String userId) {
+            for (String key : keys) {
+                map.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(userId);
+            }
+        }
+
+        private static void discard(Map<String, Set<String>> map, Collection<String> keys, String userId) {
+            for (String key : keys) {
+                map.computeIfPresent(key, (k, userIds) -> {
+                    userIds.remove(userId);
+                    return userIds.isEmpty() ? null : userIds;
+                });
+            }
+        }
+    }
+}
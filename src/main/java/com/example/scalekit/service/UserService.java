@@ -1,26 +1,72 @@
 package com.example.scalekit.service;
 
+import com.example.scalekit.resilience.ScalekitCallGuard;
+import com.example.scalekit.resilience.ScalekitCallGuard.OperationGroup;
+import com.example.scalekit.resilience.ScalekitUnavailableException;
 import com.scalekit.ScalekitClient;
 import com.scalekit.api.UserClient;
 import com.scalekit.grpc.scalekit.v1.users.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
+
+@Lazy
 @Service
 public class UserService {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserService.class);
+
     @Autowired
     private ScalekitClient scalekitClient;
 
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private ScalekitCallGuard callGuard;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    @Qualifier("scalekitTaskExecutor")
+    private AsyncTaskExecutor executor;
+
     @Value("${scalekit.organization-id}")
     private String organizationId;
 
+    @Value("${scalekit.user-batch.concurrency:8}")
+    private int batchConcurrency;
+
     private UserClient getUserClient() {
         return scalekitClient.users();
     }
 
+    private <T> T userManagementCall(String operation, Supplier<T> call) {
+        return callGuard.call(OperationGroup.USER_MANAGEMENT, operation, call);
+    }
+
     /**
      * List all users in the organization
      */
@@ -31,14 +77,96 @@ public class UserService {
                 .setPageToken(pageToken != null ? pageToken : "")
                 .build();
         
-        return getUserClient().listOrganizationUsers(organizationId, request);
+        return userCache.getPage(request.getPageSize(), request.getPageToken(),
+                () -> userManagementCall("list-organization-users",
+                        () -> getUserClient().listOrganizationUsers(organizationId, request)));
+    }
+
+    /**
+     * Walk every page of organization users, bypassing the cache. The next page is
+     * fetched in the background while the consumer handles the current one, so at
+     * most two pages are held in memory.
+     */
+    public void forEachOrganizationUsersPage(int pageSize, Consumer<List<User>> pageConsumer) {
+        CompletableFuture<ListOrganizationUsersResponse> nextPage = fetchPageAsync(pageSize, "");
+        
+        try {
+            while (nextPage != null) {
+                ListOrganizationUsersResponse page = nextPage.join();
+                String nextPageToken = page.getNextPageToken();
+                nextPage = nextPageToken.isEmpty() ? null : fetchPageAsync(pageSize, nextPageToken);
+                
+                pageConsumer.accept(page.getUsersList());
+            }
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        } finally {
+            if (nextPage != null) {
+                nextPage.cancel(true);
+            }
+        }
+    }
+
+    private CompletableFuture<ListOrganizationUsersResponse> fetchPageAsync(int pageSize, String pageToken) {
+        ListOrganizationUsersRequest request = ListOrganizationUsersRequest.newBuilder()
+                .setOrganizationId(organizationId)
+                .setPageSize(pageSize)
+                .setPageToken(pageToken)
+                .build();
+        
+        return CompletableFuture.supplyAsync(
+                () -> userManagementCall("list-organization-users",
+                        () -> getUserClient().listOrganizationUsers(organizationId, request)), executor);
     }
 
     /**
      * Get user details by user ID
      */
     public GetUserResponse getUser(String userId) {
-        return getUserClient().getUser(userId);
+        return userCache.getUser(userId, () -> userManagementCall("get-user", () -> getUserClient().getUser(userId)));
+    }
+
+    /**
+     * Get several users in one round of parallel lookups, keyed by user ID in the order
+     * given. Duplicate IDs are fetched once and at most scalekit.user-batch.concurrency
+     * lookups are in flight. Users that cannot be loaded are left out; once Scalekit is
+     * unavailable the remaining lookups are skipped.
+     */
+    public Map<String, GetUserResponse> getUsers(Collection<String> userIds) {
+        Set<String> uniqueIds = new LinkedHashSet<>(userIds);
+        uniqueIds.removeIf(userId -> userId == null || userId.isEmpty());
+        if (uniqueIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Queue<String> pending = new ConcurrentLinkedQueue<>(uniqueIds);
+        Map<String, GetUserResponse> loaded = new ConcurrentHashMap<>();
+        int workers = Math.min(batchConcurrency, uniqueIds.size());
+        CompletableFuture<?>[] lookups = new CompletableFuture<?>[workers];
+        for (int i = 0; i < workers; i++) {
+            lookups[i] = CompletableFuture.runAsync(() -> {
+                for (String userId = pending.poll(); userId != null; userId = pending.poll()) {
+                    try {
+                        loaded.put(userId, getUser(userId));
+                    } catch (ScalekitUnavailableException e) {
+                        pending.clear();
+                        logger.debug("Skipping the rest of the user batch: {}", e.getMessage());
+                    } catch (RuntimeException e) {
+                        logger.debug("Could not load user {}: {}", userId, e.getMessage());
+                    }
+                }
+            }, executor);
+        }
+        CompletableFuture.allOf(lookups).join();
+
+        Map<String, GetUserResponse> users = new LinkedHashMap<>();
+        for (String userId : uniqueIds) {
+            GetUserResponse user = loaded.get(userId);
+            if (user != null) {
+                users.put(userId, user);
+            }
+        }
+        return users;
     }
 
     /**
@@ -51,7 +179,11 @@ public class UserService {
                 .setSendInvitationEmail(sendInvitationEmail)
                 .build();
         
-        return getUserClient().createUserAndMembership(organizationId, request);
+        CreateUserAndMembershipResponse response = userManagementCall("create-user-and-membership",
+                () -> getUserClient().createUserAndMembership(organizationId, request));
+        userCache.invalidateMembership(response.getUser().getId());
+        eventPublisher.publishEvent(UserChangedEvent.changed(response.getUser().getId(), response.getUser()));
+        return response;
     }
 
     /**
@@ -62,14 +194,20 @@ public class UserService {
                 .setUser(updateUser)
                 .build();
         
-        return getUserClient().updateUser(userId, request);
+        UpdateUserResponse response = userManagementCall("update-user",
+                () -> getUserClient().updateUser(userId, request));
+        userCache.invalidateUser(userId);
+        eventPublisher.publishEvent(UserChangedEvent.changed(userId, response.getUser()));
+        return response;
     }
 
     /**
      * Delete a user
      */
     public void deleteUser(String userId) {
-        getUserClient().deleteUser(userId);
+        callGuard.run(OperationGroup.USER_MANAGEMENT, "delete-user", () -> getUserClient().deleteUser(userId));
+        userCache.invalidateMembership(userId);
+        eventPublisher.publishEvent(UserChangedEvent.removed(userId));
     }
 
     /**
@@ -82,7 +220,11 @@ public class UserService {
                 .setSendInvitationEmail(sendInvitationEmail)
                 .build();
         
-        return getUserClient().createMembership(organizationId, userId, request);
+        CreateMembershipResponse response = userManagementCall("create-membership",
+                () -> getUserClient().createMembership(organizationId, userId, request));
+        userCache.invalidateMembership(userId);
+        eventPublisher.publishEvent(UserChangedEvent.changed(userId, null));
+        return response;
     }
 
     /**
@@ -94,20 +236,27 @@ public class UserService {
                 .setMembership(updateMembership)
                 .build();
         
-        return getUserClient().updateMembership(organizationId, userId, request);
+        UpdateMembershipResponse response = userManagementCall("update-membership",
+                () -> getUserClient().updateMembership(organizationId, userId, request));
+        userCache.invalidateMembership(userId);
+        eventPublisher.publishEvent(UserChangedEvent.changed(userId, null));
+        return response;
     }
 
     /**
      * Delete user membership from the organization
      */
     public void deleteMembership(String userId) {
-        getUserClient().deleteMembership(organizationId, userId);
+        callGuard.run(OperationGroup.USER_MANAGEMENT, "delete-membership",
+                () -> getUserClient().deleteMembership(organizationId, userId));
+        userCache.invalidateMembership(userId);
+        eventPublisher.publishEvent(UserChangedEvent.removed(userId));
     }
 
     /**
      * Resend invitation email to a user
      */
     public ResendInviteResponse resendInvite(String userId) {
-        return getUserClient().resendInvite(organizationId, userId);
+        return userManagementCall("resend-invite", () -> getUserClient().resendInvite(organizationId, userId));
     }
 }
@@ -0,0 +1,28 @@
+package com.example.scalekit.service;
+
+import com.google.protobuf.Timestamp;
+import com.scalekit.grpc.scalekit.v1.users.User;
+
+import java.time.Instant;
+
+/**
+ * Flat view of a Scalekit user for JSON and CSV output
+ */
+public record UserSummary(String id, String email, String name, String firstName, String lastName,
+                          Instant createTime) {
+
+    public static UserSummary from(User user) {
+        String firstName = user.getUserProfile().getFirstName();
+        String lastName = user.getUserProfile().getLastName();
+        String name = user.getUserProfile().getName();
+        if (name.isEmpty()) {
+            name = (firstName + " " + lastName).trim();
+        }
+        return new UserSummary(user.getId(), user.getEmail(), name, firstName, lastName,
+                user.hasCreateTime() ? toInstant(user.getCreateTime()) : null);
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return Instant.ofEpochSecond(timestamp.getSeconds(), timestamp.getNanos());
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.scalekit.store;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Compact binary form of an {@link OAuth2AuthorizedClient} for the external stores.
+ *
+ * Only the registration id is written, not the whole {@link ClientRegistration}; it is
+ * resolved again on read, so a stored client is little more than its token values.
+ */
+@Component
+public class AuthorizedClientCodec {
+
+    private static final byte VERSION = 1;
+
+    private static final long NO_INSTANT = Long.MIN_VALUE;
+
+    @Autowired
+    private ClientRegistrationRepository clientRegistrationRepository;
+
+    public byte[] encode(OAuth2AuthorizedClient client) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(2048);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeUTF(client.getClientRegistration().getRegistrationId());
+            out.writeUTF(client.getPrincipalName());
+
+            // Bearer is the only access token type, so it is not written
+            OAuth2AccessToken accessToken = client.getAccessToken();
+            writeString(out, accessToken.getTokenValue());
+            writeInstant(out, accessToken.getIssuedAt());
+            writeInstant(out, accessToken.getExpiresAt());
+            out.writeShort(accessToken.getScopes().size());
+            for (String scope : accessToken.getScopes()) {
+                out.writeUTF(scope);
+            }
+
+            OAuth2RefreshToken refreshToken = client.getRefreshToken();
+            out.writeBoolean(refreshToken != null);
+            if (refreshToken != null) {
+                writeString(out, refreshToken.getTokenValue());
+                writeInstant(out, refreshToken.getIssuedAt());
+                writeInstant(out, refreshToken.getExpiresAt());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decode a stored client; returns null when the data is from an unknown format version
+     * or its client registration no longer exists
+     */
+    public OAuth2AuthorizedClient decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readByte() != VERSION) {
+                return null;
+            }
+            ClientRegistration registration = clientRegistrationRepository.findByRegistrationId(in.readUTF());
+            if (registration == null) {
+                return null;
+            }
+            String principalName = in.readUTF();
+
+            String accessTokenValue = readString(in);
+            Instant issuedAt = readInstant(in);
+            Instant expiresAt = readInstant(in);
+            int scopeCount = in.readShort();
+            Set<String> scopes = new LinkedHashSet<>(scopeCount);
+            for (int i = 0; i < scopeCount; i++) {
+                scopes.add(in.readUTF().intern());
+            }
+            OAuth2AccessToken accessToken = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER,
+                    accessTokenValue, issuedAt, expiresAt, scopes);
+
+            OAuth2RefreshToken refreshToken = null;
+            if (in.readBoolean()) {
+                refreshToken = new OAuth2RefreshToken(readString(in), readInstant(in), readInstant(in));
+            }
+            return new OAuth2AuthorizedClient(registration, principalName, accessToken, refreshToken);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Length-prefixed UTF-8, since token values may exceed the 64KB limit of writeUTF
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeInstant(DataOutputStream out, Instant instant) throws IOException {
+        out.writeLong(instant != null ? instant.toEpochMilli() : NO_INSTANT);
+    }
+
+    private static Instant readInstant(DataInputStream in) throws IOException {
+        long epochMilli = in.readLong();
+        return epochMilli != NO_INSTANT ? Instant.ofEpochMilli(epochMilli) : null;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.scalekit.store;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Refresh lock for a single node. Authorized clients are not shared with other nodes, and
+ * the token refresh coordinator already runs one refresh per principal at a time in this
+ * JVM, so there is nothing to lock.
+ */
+@Component
+@Profile("!redis-store & !jdbc-store")
+public class InMemoryRefreshLock implements RefreshLock {
+
+    private static final Lease NO_LOCK = () -> {
+    };
+
+    @Override
+    public Lease acquire(String registrationId, String principalName) {
+        return NO_LOCK;
+    }
+}
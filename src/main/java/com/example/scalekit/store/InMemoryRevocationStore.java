@@ -0,0 +1,43 @@
+package com.example.scalekit.store;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revocations kept in this JVM only, for a single node
+ */
+@Component
+@Profile("!redis-store & !jdbc-store")
+public class InMemoryRevocationStore implements RevocationStore {
+
+    @Value("${scalekit.revocation.ttl:12h}")
+    private Duration ttl;
+
+    private final Map<String, Instant> revocations = new ConcurrentHashMap<>();
+
+    @Override
+    public void revoke(String key, Instant revokedAt) {
+        revocations.merge(key, revokedAt, (current, revoked) -> revoked.isAfter(current) ? revoked : current);
+    }
+
+    @Override
+    public Map<String, Instant> revokedSince(Instant since) {
+        Instant expired = Instant.now().minus(ttl);
+        revocations.values().removeIf(revokedAt -> revokedAt.isBefore(expired));
+
+        Map<String, Instant> revoked = new HashMap<>();
+        revocations.forEach((key, revokedAt) -> {
+            if (!revokedAt.isBefore(since)) {
+                revoked.put(key, revokedAt);
+            }
+        });
+        return revoked;
+    }
+}
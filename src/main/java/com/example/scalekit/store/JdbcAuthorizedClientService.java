@@ -0,0 +1,83 @@
+package com.example.scalekit.store;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Authorized clients in a relational database, stored as one binary column per
+ * registration and principal (see schema/authorized-client-jdbc.sql)
+ */
+@Component
+@Profile("jdbc-store")
+public class JdbcAuthorizedClientService implements OAuth2AuthorizedClientService {
+
+    private static final String SELECT_SQL = "SELECT client_data FROM scalekit_authorized_client "
+            + "WHERE registration_id = ? AND principal_name = ? AND expires_at > ?";
+
+    private static final String UPDATE_SQL = "UPDATE scalekit_authorized_client SET client_data = ?, expires_at = ? "
+            + "WHERE registration_id = ? AND principal_name = ?";
+
+    private static final String INSERT_SQL = "INSERT INTO scalekit_authorized_client "
+            + "(registration_id, principal_name, client_data, expires_at) VALUES (?, ?, ?, ?)";
+
+    private static final String DELETE_SQL = "DELETE FROM scalekit_authorized_client "
+            + "WHERE registration_id = ? AND principal_name = ?";
+
+    private static final String PURGE_SQL = "DELETE FROM scalekit_authorized_client WHERE expires_at <= ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AuthorizedClientCodec codec;
+
+    @Value("${scalekit.session-store.authorized-client-ttl:12h}")
+    private Duration ttl;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends OAuth2AuthorizedClient> T loadAuthorizedClient(String clientRegistrationId, String principalName) {
+        byte[] data = jdbcTemplate.query(SELECT_SQL, rs -> rs.next() ? rs.getBytes(1) : null,
+                clientRegistrationId, principalName, Timestamp.from(Instant.now()));
+        return data != null ? (T) codec.decode(data) : null;
+    }
+
+    @Override
+    public void saveAuthorizedClient(OAuth2AuthorizedClient authorizedClient, Authentication principal) {
+        String registrationId = authorizedClient.getClientRegistration().getRegistrationId();
+        byte[] data = codec.encode(authorizedClient);
+        Timestamp expiresAt = Timestamp.from(Instant.now().plus(ttl));
+
+        if (jdbcTemplate.update(UPDATE_SQL, data, expiresAt, registrationId, principal.getName()) > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(INSERT_SQL, registrationId, principal.getName(), data, expiresAt);
+        } catch (DuplicateKeyException e) {
+            // Another node inserted the row first
+            jdbcTemplate.update(UPDATE_SQL, data, expiresAt, registrationId, principal.getName());
+        }
+    }
+
+    @Override
+    public void removeAuthorizedClient(String clientRegistrationId, String principalName) {
+        jdbcTemplate.update(DELETE_SQL, clientRegistrationId, principalName);
+    }
+
+    @Scheduled(fixedDelayString = "${scalekit.session-store.cleanup-interval:PT10M}")
+    public void purgeExpired() {
+        jdbcTemplate.update(PURGE_SQL, Timestamp.from(Instant.now()));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.scalekit.store;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Refresh lock as one row per principal (see schema/refresh-lock-jdbc.sql). A free lock is
+ * inserted; an expired one is taken over by a conditional update, so only one node wins.
+ */
+@Component
+@Profile("jdbc-store")
+public class JdbcRefreshLock extends PollingRefreshLock {
+
+    private static final String INSERT_SQL = "INSERT INTO scalekit_refresh_lock (lock_key, owner, locked_until) "
+            + "VALUES (?, ?, ?)";
+
+    private static final String TAKE_OVER_SQL = "UPDATE scalekit_refresh_lock SET owner = ?, locked_until = ? "
+            + "WHERE lock_key = ? AND locked_until <= ?";
+
+    private static final String DELETE_SQL = "DELETE FROM scalekit_refresh_lock WHERE lock_key = ? AND owner = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    protected boolean tryLock(String key, String owner, Duration lease) {
+        Instant now = Instant.now();
+        Timestamp lockedUntil = Timestamp.from(now.plus(lease));
+        try {
+            jdbcTemplate.update(INSERT_SQL, key, owner, lockedUntil);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return jdbcTemplate.update(TAKE_OVER_SQL, owner, lockedUntil, key, Timestamp.from(now)) > 0;
+        }
+    }
+
+    @Override
+    protected void unlock(String key, String owner) {
+        jdbcTemplate.update(DELETE_SQL, key, owner);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.scalekit.store;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Revocations in a relational database, one row per key (see schema/revocation-jdbc.sql)
+ */
+@Component
+@Profile("jdbc-store")
+public class JdbcRevocationStore implements RevocationStore {
+
+    private static final String SELECT_SQL = "SELECT revocation_key, revoked_at FROM scalekit_revocation "
+            + "WHERE revoked_at >= ?";
+
+    private static final String UPDATE_SQL = "UPDATE scalekit_revocation SET revoked_at = ? "
+            + "WHERE revocation_key = ? AND revoked_at < ?";
+
+    private static final String INSERT_SQL = "INSERT INTO scalekit_revocation (revocation_key, revoked_at) VALUES (?, ?)";
+
+    private static final String PURGE_SQL = "DELETE FROM scalekit_revocation WHERE revoked_at < ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${scalekit.revocation.ttl:12h}")
+    private Duration ttl;
+
+    @Override
+    public void revoke(String key, Instant revokedAt) {
+        Timestamp timestamp = Timestamp.from(revokedAt);
+        try {
+            jdbcTemplate.update(INSERT_SQL, key, timestamp);
+        } catch (DuplicateKeyException e) {
+            jdbcTemplate.update(UPDATE_SQL, timestamp, key, timestamp);
+        }
+    }
+
+    @Override
+    public Map<String, Instant> revokedSince(Instant since) {
+        Map<String, Instant> revoked = new HashMap<>();
+        jdbcTemplate.query(SELECT_SQL, rs -> {
+            revoked.put(rs.getString(1), rs.getTimestamp(2).toInstant());
+        }, Timestamp.from(since));
+        return revoked;
+    }
+
+    @Scheduled(fixedDelayString = "${scalekit.session-store.cleanup-interval:PT10M}")
+    public void purgeExpired() {
+        jdbcTemplate.update(PURGE_SQL, Timestamp.from(Instant.now().minus(ttl)));
+    }
+}
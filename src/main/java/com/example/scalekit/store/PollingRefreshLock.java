@@ -0,0 +1,52 @@
+package com.example.scalekit.store;
+
+import org.springframework.beans.factory.annotation.Value;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Refresh lock on a shared store, retried until it is free. Every lock expires after the
+ * lease time, so a node that dies mid-refresh blocks the principal's refreshes for at most
+ * that long.
+ */
+abstract class PollingRefreshLock implements RefreshLock {
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(50);
+
+    @Value("${scalekit.session-store.refresh-lock.lease:30s}")
+    private Duration lease;
+
+    @Value("${scalekit.session-store.refresh-lock.max-wait:15s}")
+    private Duration maxWait;
+
+    @Override
+    public Lease acquire(String registrationId, String principalName) {
+        String key = registrationId + ":" + principalName;
+        String owner = UUID.randomUUID().toString();
+        long deadline = System.nanoTime() + maxWait.toNanos();
+
+        while (!tryLock(key, owner, lease)) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new IllegalStateException("Timed out waiting for the token refresh of " + key + " on another node");
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the token refresh of " + key, e);
+            }
+        }
+        return () -> unlock(key, owner);
+    }
+
+    /**
+     * Take the lock for the owner if it is free or its lease has run out
+     */
+    protected abstract boolean tryLock(String key, String owner, Duration lease);
+
+    /**
+     * Release the lock if the owner still holds it
+     */
+    protected abstract void unlock(String key, String owner);
+}
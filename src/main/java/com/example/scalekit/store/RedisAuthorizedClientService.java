@@ -0,0 +1,70 @@
+package com.example.scalekit.store;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Authorized clients in Redis (or any Redis-protocol server), one binary value per
+ * registration and principal, shared by every node. Clients are read only when a request
+ * needs the tokens, never with the session.
+ */
+@Component
+@Profile("redis-store")
+public class RedisAuthorizedClientService implements OAuth2AuthorizedClientService {
+
+    private static final String KEY_PREFIX = "scalekit:authorized-client:";
+
+    @Autowired
+    private RedisConnectionFactory redisConnectionFactory;
+
+    @Autowired
+    private AuthorizedClientCodec codec;
+
+    @Value("${scalekit.session-store.authorized-client-ttl:12h}")
+    private Duration ttl;
+
+    private RedisTemplate<String, byte[]> redisTemplate;
+
+    @PostConstruct
+    void initTemplate() {
+        RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+        template.setConnectionFactory(redisConnectionFactory);
+        template.setKeySerializer(RedisSerializer.string());
+        template.setValueSerializer(RedisSerializer.byteArray());
+        template.afterPropertiesSet();
+        this.redisTemplate = template;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends OAuth2AuthorizedClient> T loadAuthorizedClient(String clientRegistrationId, String principalName) {
+        byte[] data = redisTemplate.opsForValue().get(key(clientRegistrationId, principalName));
+        return data != null ? (T) codec.decode(data) : null;
+    }
+
+    @Override
+    public void saveAuthorizedClient(OAuth2AuthorizedClient authorizedClient, Authentication principal) {
+        String key = key(authorizedClient.getClientRegistration().getRegistrationId(), principal.getName());
+        redisTemplate.opsForValue().set(key, codec.encode(authorizedClient), ttl);
+    }
+
+    @Override
+    public void removeAuthorizedClient(String clientRegistrationId, String principalName) {
+        redisTemplate.delete(key(clientRegistrationId, principalName));
+    }
+
+    private static String key(String clientRegistrationId, String principalName) {
+        return KEY_PREFIX + clientRegistrationId + ":" + principalName;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.scalekit.store;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Refresh lock as a Redis key set with NX and an expiry, deleted only by the owner that
+ * set it
+ */
+@Component
+@Profile("redis-store")
+public class RedisRefreshLock extends PollingRefreshLock {
+
+    private static final String KEY_PREFIX = "scalekit:refresh-lock:";
+
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Override
+    protected boolean tryLock(String key, String owner, Duration lease) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + key, owner, lease));
+    }
+
+    @Override
+    protected void unlock(String key, String owner) {
+        redisTemplate.execute(UNLOCK_SCRIPT, List.of(KEY_PREFIX + key), owner);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.scalekit.store;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Revocations in one Redis sorted set scored by revocation time, so each node's sync is a
+ * single range query. Entries older than the TTL are trimmed on every write.
+ */
+@Component
+@Profile("redis-store")
+public class RedisRevocationStore implements RevocationStore {
+
+    private static final String KEY = "scalekit:revocations";
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Value("${scalekit.revocation.ttl:12h}")
+    private Duration ttl;
+
+    @Override
+    public void revoke(String key, Instant revokedAt) {
+        redisTemplate.opsForZSet().add(KEY, key, revokedAt.toEpochMilli());
+        redisTemplate.opsForZSet().removeRangeByScore(KEY, 0, Instant.now().minus(ttl).toEpochMilli());
+    }
+
+    @Override
+    public Map<String, Instant> revokedSince(Instant since) {
+        Set<TypedTuple<String>> entries =
+                redisTemplate.opsForZSet().rangeByScoreWithScores(KEY, since.toEpochMilli(), Double.POSITIVE_INFINITY);
+        Map<String, Instant> revoked = new HashMap<>();
+        if (entries != null) {
+            for (TypedTuple<String> entry : entries) {
+                if (entry.getValue() != null && entry.getScore() != null) {
+                    revoked.put(entry.getValue(), Instant.ofEpochMilli(entry.getScore().longValue()));
+                }
+            }
+        }
+        return revoked;
+    }
+}
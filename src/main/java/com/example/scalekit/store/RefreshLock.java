@@ -0,0 +1,26 @@
+package com.example.scalekit.store;
+
+/**
+ * Lock taken across all nodes while one of them refreshes a principal's tokens. Scalekit
+ * rotates the refresh token on every refresh, so two nodes refreshing at once would present
+ * the same refresh token twice; under the lock the second node reads the rotated token
+ * saved by the first.
+ */
+public interface RefreshLock {
+
+    /**
+     * Take the lock for the registration and principal, waiting up to the configured time
+     *
+     * @throws IllegalStateException if another node still holds the lock after that time
+     */
+    Lease acquire(String registrationId, String principalName);
+
+    /**
+     * A held lock, released on close
+     */
+    interface Lease extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.scalekit.store;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Shared record of revoked session ids and subjects, so a back-channel logout received by
+ * one node reaches every node. Entries only need to outlive the sessions they revoke
+ * (scalekit.revocation.ttl) and may be dropped after that.
+ */
+public interface RevocationStore {
+
+    /**
+     * Record a revocation; a later revocation of the same key replaces the earlier one
+     */
+    void revoke(String key, Instant revokedAt);
+
+    /**
+     * Revocations recorded at or after the given time, by key
+     */
+    Map<String, Instant> revokedSince(Instant since);
+}
@@ -0,0 +1,115 @@
+package com.example.scalekit.view;
+
+import com.example.scalekit.service.UserChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.protobuf.MessageLite;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rendered HTML of per-user template fragments, such as a users list row or the user
+ * detail profile card.
+ *
+ * Entries are keyed by template, user ID and a SHA-256 digest of the protobuf message the
+ * fragment shows, so a changed user never gets a stale fragment; the
+ * {@link com.example.scalekit.service.UserService} write operations additionally drop the
+ * user's entries. Fragments are rendered outside the request, so they must not use
+ * request-dependent expressions such as @{...} links. With the Thymeleaf template cache
+ * off (editing templates locally), nothing is cached.
+ */
+@Component
+public class FragmentCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(FragmentCache.class);
+
+    @Autowired
+    private ITemplateEngine templateEngine;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${spring.thymeleaf.cache:true}")
+    private boolean templateCache;
+
+    @Value("${scalekit.fragment-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${scalekit.fragment-cache.max-entries:10000}")
+    private long maxEntries;
+
+    @Value("${scalekit.fragment-cache.idle-timeout:30m}")
+    private Duration idleTimeout;
+
+    private Cache<FragmentKey, String> fragments;
+
+    @PostConstruct
+    void initCache() {
+        fragments = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterAccess(idleTimeout)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, fragments, "scalekit.fragments");
+
+        logger.info("Thymeleaf template cache {}, fragment cache {}",
+                templateCache ? "on" : "off", isCaching() ? "on" : "off");
+    }
+
+    /**
+     * The fragment rendered with the given variables, from the cache when this user's
+     * fragment was already rendered from the same content. The content must be everything
+     * the variables show.
+     */
+    public String render(String template, String fragment, String userId, MessageLite content,
+                         Map<String, Object> variables) {
+        if (!isCaching()) {
+            return process(template, fragment, variables);
+        }
+        return fragments.get(new FragmentKey(template, fragment, userId, digest(content)),
+                key -> process(template, fragment, variables));
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        fragments.asMap().keySet().removeIf(key -> key.userId().equals(event.userId()));
+    }
+
+    private boolean isCaching() {
+        return enabled && templateCache;
+    }
+
+    private String process(String template, String fragment, Map<String, Object> variables) {
+        Context context = new Context(LocaleContextHolder.getLocale(), variables);
+        return templateEngine.process(template, Set.of(fragment), context);
+    }
+
+    private static String digest(MessageLite content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.toByteArray());
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record FragmentKey(String template, String fragment, String userId, String version) {
+    }
+}
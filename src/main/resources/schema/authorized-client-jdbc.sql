@@ -0,0 +1,9 @@
+CREATE TABLE IF NOT EXISTS scalekit_authorized_client (
+    registration_id VARCHAR(100) NOT NULL,
+    principal_name  VARCHAR(200) NOT NULL,
+    client_data     BYTEA        NOT NULL,
+    expires_at      TIMESTAMP    NOT NULL,
+    PRIMARY KEY (registration_id, principal_name)
+);
+
+CREATE INDEX IF NOT EXISTS scalekit_authorized_client_expires_at ON scalekit_authorized_client (expires_at);
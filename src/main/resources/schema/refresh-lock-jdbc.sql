@@ -0,0 +1,6 @@
+CREATE TABLE IF NOT EXISTS scalekit_refresh_lock (
+    lock_key     VARCHAR(301) NOT NULL,
+    owner        VARCHAR(36)  NOT NULL,
+    locked_until TIMESTAMP    NOT NULL,
+    PRIMARY KEY (lock_key)
+);
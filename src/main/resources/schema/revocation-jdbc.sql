@@ -0,0 +1,7 @@
+CREATE TABLE IF NOT EXISTS scalekit_revocation (
+    revocation_key VARCHAR(300) NOT NULL,
+    revoked_at     TIMESTAMP    NOT NULL,
+    PRIMARY KEY (revocation_key)
+);
+
+CREATE INDEX IF NOT EXISTS scalekit_revocation_revoked_at ON scalekit_revocation (revoked_at);
@@ -0,0 +1,120 @@
+package com.example.scalekit.controller;
+
+import com.example.scalekit.security.RevocationIndex;
+import com.example.scalekit.service.LocalAccessTokenValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.InMemoryClientRegistrationRepository;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Logout tokens are checked for their audience and accepted once
+ */
+class BackChannelLogoutControllerTest {
+
+    private LocalAccessTokenValidator accessTokenValidator;
+
+    private RevocationIndex revocationIndex;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        ClientRegistration registration = ClientRegistration.withRegistrationId("scalekit")
+                .clientId("test-client-id")
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .redirectUri("{baseUrl}/auth/callback")
+                .authorizationUri("https://test.scalekit.dev/oauth/authorize")
+                .tokenUri("https://test.scalekit.dev/oauth/token")
+                .build();
+        accessTokenValidator = mock(LocalAccessTokenValidator.class);
+        revocationIndex = mock(RevocationIndex.class);
+
+        BackChannelLogoutController controller = new BackChannelLogoutController();
+        ReflectionTestUtils.setField(controller, "clientRegistrationRepository",
+                new InMemoryClientRegistrationRepository(registration));
+        ReflectionTestUtils.setField(controller, "accessTokenValidator", accessTokenValidator);
+        ReflectionTestUtils.setField(controller, "revocationIndex", revocationIndex);
+        ReflectionTestUtils.setField(controller, "maxLogoutTokens", 100);
+        ReflectionTestUtils.invokeMethod(controller, "initSeenLogoutTokens");
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void revokesTheNamedSession() throws Exception {
+        when(accessTokenValidator.decodeLogoutToken("token-1")).thenReturn(logoutToken("lt_1", "test-client-id"));
+
+        logout("token-1").andExpect(status().isOk());
+
+        verify(revocationIndex).revokeSession("sid_1");
+    }
+
+    @Test
+    void rejectsAReplayedLogoutToken() throws Exception {
+        when(accessTokenValidator.decodeLogoutToken("token-1")).thenReturn(logoutToken("lt_1", "test-client-id"));
+        logout("token-1").andExpect(status().isOk());
+
+        logout("token-1")
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error_description").value("Logout token has already been used"));
+
+        verify(revocationIndex, times(1)).revokeSession("sid_1");
+    }
+
+    @Test
+    void rejectedTokenDoesNotUseUpItsJti() throws Exception {
+        when(accessTokenValidator.decodeLogoutToken("other-client")).thenReturn(logoutToken("lt_1", "other-client-id"));
+        when(accessTokenValidator.decodeLogoutToken("token-1")).thenReturn(logoutToken("lt_1", "test-client-id"));
+
+        logout("other-client").andExpect(status().isBadRequest());
+        logout("token-1").andExpect(status().isOk());
+    }
+
+    @Test
+    void rejectsTokensTheDecoderRejects() throws Exception {
+        when(accessTokenValidator.decodeLogoutToken("access-token"))
+                .thenThrow(new BadJwtException("The events claim is not valid"));
+
+        logout("access-token").andExpect(status().isBadRequest());
+
+        verify(revocationIndex, never()).revokeSession("sid_1");
+    }
+
+    private ResultActions logout(String token) throws Exception {
+        return mockMvc.perform(post("/logout/back-channel/scalekit")
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .param("logout_token", token));
+    }
+
+    private static Jwt logoutToken(String jti, String audience) {
+        Instant now = Instant.now();
+        return Jwt.withTokenValue("logout-token")
+                .header("alg", "RS256")
+                .jti(jti)
+                .audience(List.of(audience))
+                .issuedAt(now)
+                .expiresAt(now.plusSeconds(120))
+                .claim("sid", "sid_1")
+                .build();
+    }
+}
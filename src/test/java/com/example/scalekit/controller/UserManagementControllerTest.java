@@ -0,0 +1,90 @@
+package com.example.scalekit.controller;
+
+import com.example.scalekit.service.UserService;
+import com.example.scalekit.view.FragmentCache;
+import com.scalekit.grpc.scalekit.v1.users.ListOrganizationUsersResponse;
+import com.scalekit.grpc.scalekit.v1.users.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.web.method.annotation.AuthenticationPrincipalArgumentResolver;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Conditional requests for the users list page
+ */
+class UserManagementControllerTest {
+
+    private UserService userService;
+
+    private FragmentCache fragmentCache;
+
+    private UserManagementController controller;
+
+    private MockMvc mockMvc;
+
+    private final MockHttpSession session = new MockHttpSession();
+
+    @BeforeEach
+    void setUp() {
+        userService = mock(UserService.class);
+        fragmentCache = mock(FragmentCache.class);
+        when(fragmentCache.render(anyString(), anyString(), anyString(), any(), anyMap())).thenReturn("<tr></tr>");
+        when(userService.listOrganizationUsers(anyInt(), anyString())).thenReturn(ListOrganizationUsersResponse.newBuilder()
+                .addUsers(User.newBuilder().setId("usr_1").setEmail("alice@example.com"))
+                .build());
+
+        controller = new UserManagementController();
+        ReflectionTestUtils.setField(controller, "userService", userService);
+        ReflectionTestUtils.setField(controller, "fragmentCache", fragmentCache);
+        ReflectionTestUtils.setField(controller, "pageEtags", true);
+        ReflectionTestUtils.setField(controller, "compression", true);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setCustomArgumentResolvers(new AuthenticationPrincipalArgumentResolver())
+                // Templates are not rendered here, only whether the page is
+                .setViewResolvers((viewName, locale) -> (model, request, response) -> {
+                })
+                .build();
+    }
+
+    @Test
+    void unchangedPageIsAnswered304WithoutRendering() throws Exception {
+        String etag = mockMvc.perform(get("/users").session(session))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/users").session(session).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        verify(fragmentCache, times(1)).render(anyString(), anyString(), anyString(), any(), anyMap());
+        verify(userService, times(2)).listOrganizationUsers(anyInt(), anyString());
+        verify(userService, never()).getUser(anyString());
+    }
+
+    @Test
+    void etagIsWeakWhileResponsesAreCompressed() throws Exception {
+        String etag = mockMvc.perform(get("/users").session(session))
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(etag).startsWith("W/\"");
+
+        ReflectionTestUtils.setField(controller, "compression", false);
+        String strongEtag = mockMvc.perform(get("/users").session(session))
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(strongEtag).startsWith("\"").isEqualTo(etag.substring(2));
+    }
+}
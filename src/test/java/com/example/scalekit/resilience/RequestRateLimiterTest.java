@@ -0,0 +1,116 @@
+package com.example.scalekit.resilience;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The limiter in front of an async handler, driven through both of its dispatches
+ */
+class RequestRateLimiterTest {
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("scalekit.rate-limit.limits.deferred.capacity", "1")
+                .withProperty("scalekit.rate-limit.limits.deferred.period", "1m");
+
+        mockMvc = MockMvcBuilders.standaloneSetup(new DeferredController())
+                .addInterceptors(rateLimiter(environment, 10))
+                .build();
+    }
+
+    @Test
+    void asyncDispatchDoesNotTakeASecondToken() throws Exception {
+        MvcResult started = mockMvc.perform(get("/deferred"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().string("done"));
+    }
+
+    @Test
+    void nextRequestOverTheLimitIsRejected() throws Exception {
+        MvcResult started = mockMvc.perform(get("/deferred")).andReturn();
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/deferred"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+    }
+
+    @Test
+    void rejectsAZeroCapacityAtStartup() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("scalekit.rate-limit.limits.deferred.capacity", "0");
+
+        assertThatThrownBy(() -> rateLimiter(environment, 10))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("'deferred'");
+    }
+
+    @Test
+    void rejectsAZeroDefaultCapacityAtStartup() {
+        assertThatThrownBy(() -> rateLimiter(new MockEnvironment(), 0))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("'default'");
+    }
+
+    @Test
+    void rejectsAPeriodTooShortToRefillAtStartup() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("scalekit.rate-limit.limits.deferred.capacity", "10")
+                .withProperty("scalekit.rate-limit.limits.deferred.period", "5ns");
+
+        assertThatThrownBy(() -> rateLimiter(environment, 10))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("'deferred'");
+    }
+
+    private static RequestRateLimiter rateLimiter(MockEnvironment environment, int defaultCapacity) {
+        RequestRateLimiter rateLimiter = new RequestRateLimiter();
+        ReflectionTestUtils.setField(rateLimiter, "environment", environment);
+        ReflectionTestUtils.setField(rateLimiter, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(rateLimiter, "enabled", true);
+        ReflectionTestUtils.setField(rateLimiter, "defaultCapacity", defaultCapacity);
+        ReflectionTestUtils.setField(rateLimiter, "defaultPeriod", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(rateLimiter, "maxBuckets", 1000L);
+        ReflectionTestUtils.setField(rateLimiter, "idleTimeout", Duration.ofMinutes(10));
+        ReflectionTestUtils.invokeMethod(rateLimiter, "initBuckets");
+        return rateLimiter;
+    }
+
+    @RestController
+    static class DeferredController {
+
+        @GetMapping("/deferred")
+        @RateLimited("deferred")
+        public DeferredResult<String> deferred() {
+            DeferredResult<String> result = new DeferredResult<>();
+            result.setResult("done");
+            return result;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.scalekit.resilience;
+
+import com.example.scalekit.resilience.ScalekitCallGuard.OperationGroup;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The guard against a local stand-in for the Scalekit API that injects latency and errors
+ */
+class ScalekitCallGuardTest {
+
+    private static final Duration TIMEOUT = Duration.ofMillis(200);
+
+    private static final Duration OPEN_DURATION = Duration.ofMillis(300);
+
+    private FaultInjectingServer server;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ScalekitCallGuard callGuard;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FaultInjectingServer();
+        meterRegistry = new SimpleMeterRegistry();
+
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("scalekit.resilience.bulkheads.auth", "4")
+                .withProperty("scalekit.resilience.bulkheads.user-management", "1");
+        callGuard = new ScalekitCallGuard();
+        ReflectionTestUtils.setField(callGuard, "environment", environment);
+        ReflectionTestUtils.setField(callGuard, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(callGuard, "defaultTimeout", TIMEOUT);
+        ReflectionTestUtils.setField(callGuard, "bulkheadMaxWait", Duration.ofMillis(50));
+        ReflectionTestUtils.setField(callGuard, "windowSize", 4);
+        ReflectionTestUtils.setField(callGuard, "minimumCalls", 4);
+        ReflectionTestUtils.setField(callGuard, "failureRateThreshold", 0.5);
+        ReflectionTestUtils.setField(callGuard, "openDuration", OPEN_DURATION);
+        ReflectionTestUtils.setField(callGuard, "halfOpenCalls", 1);
+        ReflectionTestUtils.invokeMethod(callGuard, "init");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(callGuard, "shutdown");
+        server.stop();
+    }
+
+    @Test
+    void returnsTheUpstreamResult() {
+        assertThat(callGuard.call(OperationGroup.AUTH, "validate", server::get)).isEqualTo(200);
+        assertThat(circuitState(OperationGroup.AUTH)).isEqualTo(CircuitBreaker.State.CLOSED.ordinal());
+    }
+
+    @Test
+    void abandonsCallsThatMissTheirDeadline() {
+        server.delay(Duration.ofSeconds(2));
+
+        long startedAt = System.nanoTime();
+        assertThatThrownBy(() -> callGuard.call(OperationGroup.AUTH, "validate", server::get))
+                .isInstanceOf(ScalekitUnavailableException.class)
+                .hasMessageContaining("timed out");
+
+        assertThat(Duration.ofNanos(System.nanoTime() - startedAt)).isLessThan(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void opensOnUpstreamErrorsAndFailsFastWithoutCallingUpstream() {
+        server.failWith(503);
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> callGuard.call(OperationGroup.AUTH, "validate", server::get))
+                    .isInstanceOf(UncheckedIOException.class);
+        }
+        int requestsBeforeOpen = server.requests();
+
+        assertThatThrownBy(() -> callGuard.call(OperationGroup.AUTH, "validate", server::get))
+                .isInstanceOf(ScalekitUnavailableException.class);
+
+        assertThat(server.requests()).isEqualTo(requestsBeforeOpen);
+        assertThat(circuitState(OperationGroup.AUTH)).isEqualTo(CircuitBreaker.State.OPEN.ordinal());
+        assertThat(rejected(OperationGroup.AUTH, "circuit_open")).isEqualTo(1);
+    }
+
+    @Test
+    void opensOnTimeoutsAndClosesOnceTheUpstreamRecovers() throws Exception {
+        server.delay(Duration.ofSeconds(1));
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> callGuard.call(OperationGroup.AUTH, "validate", server::get))
+                    .isInstanceOf(ScalekitUnavailableException.class);
+        }
+        assertThat(circuitState(OperationGroup.AUTH)).isEqualTo(CircuitBreaker.State.OPEN.ordinal());
+
+        server.recover();
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+
+        assertThat(callGuard.call(OperationGroup.AUTH, "validate", server::get)).isEqualTo(200);
+        assertThat(circuitState(OperationGroup.AUTH)).isEqualTo(CircuitBreaker.State.CLOSED.ordinal());
+    }
+
+    @Test
+    void answeredErrorsDoNotOpenTheCircuit() {
+        server.failWith(404);
+        for (int i = 0; i < 6; i++) {
+            assertThat(callGuard.call(OperationGroup.AUTH, "validate", server::get)).isEqualTo(404);
+        }
+
+        assertThat(circuitState(OperationGroup.AUTH)).isEqualTo(CircuitBreaker.State.CLOSED.ordinal());
+    }
+
+    @Test
+    void timedOutCallKeepsItsBulkheadPermitUntilItReturns() throws Exception {
+        CountDownLatch upstreamResponds = new CountDownLatch(1);
+        // An SDK call that ignores interrupts and only returns when the upstream answers
+        Supplier<String> stuckCall = () -> {
+            while (true) {
+                try {
+                    upstreamResponds.await();
+                    return "late";
+                } catch (InterruptedException ignored) {
+                    // keep waiting, like a blocking call that cannot be cancelled
+                }
+            }
+        };
+
+        assertThatThrownBy(() -> callGuard.call(OperationGroup.USER_MANAGEMENT, "list-users", stuckCall))
+                .isInstanceOf(ScalekitUnavailableException.class)
+                .hasMessageContaining("timed out");
+
+        assertThatThrownBy(() -> callGuard.call(OperationGroup.USER_MANAGEMENT, "list-users", server::get))
+                .isInstanceOf(ScalekitUnavailableException.class)
+                .hasMessageContaining("Too many concurrent");
+        assertThat(rejected(OperationGroup.USER_MANAGEMENT, "bulkhead_full")).isEqualTo(1);
+
+        // Auth calls have their own bulkhead
+        assertThat(callGuard.call(OperationGroup.AUTH, "validate", server::get)).isEqualTo(200);
+
+        upstreamResponds.countDown();
+        Thread.sleep(100);
+        assertThat(callGuard.call(OperationGroup.USER_MANAGEMENT, "list-users", server::get)).isEqualTo(200);
+    }
+
+    private double circuitState(OperationGroup group) {
+        return meterRegistry.get("scalekit.circuit.state").tag("group", group.getKey()).gauge().value();
+    }
+
+    private double rejected(OperationGroup group, String reason) {
+        return meterRegistry.get("scalekit.calls.rejected")
+                .tag("group", group.getKey()).tag("reason", reason).counter().count();
+    }
+
+    /**
+     * Stand-in for the Scalekit API answering with an injected delay or status. Statuses of
+     * 500 and above surface as IOExceptions, like transport failures in the SDK.
+     */
+    private static final class FaultInjectingServer {
+
+        private final HttpServer server;
+
+        private final HttpClient client = HttpClient.newHttpClient();
+
+        private final AtomicInteger requests = new AtomicInteger();
+
+        private volatile Duration delay = Duration.ZERO;
+
+        private volatile int status = 200;
+
+        FaultInjectingServer() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.createContext("/", exchange -> {
+                requests.incrementAndGet();
+                try {
+                    Thread.sleep(delay.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                exchange.sendResponseHeaders(status, -1);
+                exchange.close();
+            });
+            server.start();
+        }
+
+        Integer get() {
+            HttpRequest request = HttpRequest.newBuilder(
+                    URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/")).build();
+            try {
+                int statusCode = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                if (statusCode >= 500) {
+                    throw new UncheckedIOException(new IOException("HTTP " + statusCode));
+                }
+                return statusCode;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted", e);
+            }
+        }
+
+        void delay(Duration delay) {
+            this.delay = delay;
+        }
+
+        void failWith(int status) {
+            this.status = status;
+        }
+
+        void recover() {
+            delay = Duration.ZERO;
+            status = 200;
+        }
+
+        int requests() {
+            return requests.get();
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.example.scalekit.service;
+
+import com.example.scalekit.provider.ProviderMetadataStore;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.InMemoryClientRegistrationRepository;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Local validation against a stand-in JWKS endpoint: key rotation, the refetch rate limit,
+ * the snapshot failover and back-channel logout tokens
+ */
+class LocalAccessTokenValidatorTest {
+
+    private static final String REGISTRATION_ID = "scalekit";
+
+    private static final String ISSUER = "https://test.scalekit.dev";
+
+    private static RSAKey firstKey;
+
+    private static RSAKey rotatedKey;
+
+    private static RSAKey unpublishedKey;
+
+    private JwksServer jwksServer;
+
+    @BeforeAll
+    static void generateKeys() throws Exception {
+        firstKey = new RSAKeyGenerator(2048).keyID("key-1").generate();
+        rotatedKey = new RSAKeyGenerator(2048).keyID("key-2").generate();
+        unpublishedKey = new RSAKeyGenerator(2048).keyID("key-unpublished").generate();
+    }
+
+    @BeforeEach
+    void startJwksServer() throws IOException {
+        jwksServer = new JwksServer();
+        jwksServer.publish(firstKey);
+    }
+
+    @AfterEach
+    void stopJwksServer() {
+        jwksServer.stop();
+    }
+
+    @Test
+    void validatesTokenAndServesRepeatsFromMemory() throws Exception {
+        LocalAccessTokenValidator validator = validator(null);
+        String token = token(firstKey);
+
+        Map<String, Object> claims = validator.validate(token);
+        validator.validate(token);
+        validator.validate(token);
+
+        assertThat(claims).containsEntry("sub", "usr_1").containsKey("exp");
+        assertThat(claims.get("exp")).isInstanceOf(Long.class);
+        assertThat(jwksServer.requests()).isEqualTo(1);
+    }
+
+    @Test
+    void refetchesKeysOnUnknownKidAfterRotation() throws Exception {
+        LocalAccessTokenValidator validator = validator(null);
+        assertThat(validator.isValid(token(firstKey))).isTrue();
+
+        jwksServer.publish(firstKey, rotatedKey);
+
+        assertThat(validator.isValid(token(rotatedKey))).isTrue();
+        assertThat(jwksServer.requests()).isEqualTo(2);
+    }
+
+    @Test
+    void limitsRefetchesToOnePerInterval() throws Exception {
+        LocalAccessTokenValidator validator = validator(null);
+        assertThat(validator.isValid(token(firstKey))).isTrue();
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(validator.isValid(token(unpublishedKey))).isFalse();
+        }
+
+        // The initial fetch plus a single refetch for the unknown kid
+        assertThat(jwksServer.requests()).isEqualTo(2);
+    }
+
+    @Test
+    void fallsBackToSnapshotKeysWhenTheJwkSetCannotBeFetched() throws Exception {
+        jwksServer.fail();
+        LocalAccessTokenValidator validator = validator(new JWKSet(firstKey.toPublicJWK()));
+
+        assertThat(validator.isValid(token(firstKey))).isTrue();
+        assertThat(jwksServer.requests()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void rejectsTokensWhenNeitherTheEndpointNorASnapshotHasKeys() throws Exception {
+        jwksServer.fail();
+        LocalAccessTokenValidator validator = validator(null);
+
+        assertThatThrownBy(() -> validator.validate(token(firstKey))).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void rejectsTokenFromAnotherIssuer() throws Exception {
+        LocalAccessTokenValidator validator = validator(null);
+
+        assertThat(validator.isValid(token(firstKey, "https://other.example.com"))).isFalse();
+    }
+
+    @Test
+    void decodesLogoutTokensCarryingTheLogoutEventAndAJti() throws Exception {
+        LocalAccessTokenValidator validator = validator(null);
+
+        Jwt logoutToken = validator.decodeLogoutToken(logoutToken(firstKey, "lt_1", true));
+
+        assertThat(logoutToken.getId()).isEqualTo("lt_1");
+        assertThat(logoutToken.getClaimAsString("sid")).isEqualTo("sid_1");
+    }
+
+    @Test
+    void rejectsLogoutTokensWithoutTheLogoutEventOrAJti() throws Exception {
+        LocalAccessTokenValidator validator = validator(null);
+
+        assertThatThrownBy(() -> validator.decodeLogoutToken(logoutToken(firstKey, "lt_1", false)))
+                .isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> validator.decodeLogoutToken(logoutToken(firstKey, null, true)))
+                .isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void validatedAccessTokenIsNotAcceptedAsALogoutToken() throws Exception {
+        LocalAccessTokenValidator validator = validator(null);
+        String accessToken = token(firstKey);
+        assertThat(validator.isValid(accessToken)).isTrue();
+
+        assertThatThrownBy(() -> validator.decodeLogoutToken(accessToken)).isInstanceOf(JwtException.class);
+    }
+
+    private LocalAccessTokenValidator validator(JWKSet snapshotKeys) throws Exception {
+        ClientRegistration registration = ClientRegistration.withRegistrationId(REGISTRATION_ID)
+                .clientId("test-client-id")
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .redirectUri("{baseUrl}/auth/callback")
+                .authorizationUri(ISSUER + "/oauth/authorize")
+                .tokenUri(ISSUER + "/oauth/token")
+                .jwkSetUri(jwksServer.uri())
+                .issuerUri(ISSUER)
+                .build();
+        ProviderMetadataStore providerMetadataStore = mock(ProviderMetadataStore.class);
+        when(providerMetadataStore.getJwkSet(REGISTRATION_ID)).thenReturn(snapshotKeys);
+
+        LocalAccessTokenValidator validator = new LocalAccessTokenValidator();
+        ReflectionTestUtils.setField(validator, "clientRegistrationRepository",
+                new InMemoryClientRegistrationRepository(registration));
+        ReflectionTestUtils.setField(validator, "providerMetadataStore", providerMetadataStore);
+        ReflectionTestUtils.setField(validator, "registrationId", REGISTRATION_ID);
+        ReflectionTestUtils.setField(validator, "audience", "test-client-id");
+        ReflectionTestUtils.setField(validator, "jwksCacheTtl", Duration.ofMinutes(15));
+        ReflectionTestUtils.setField(validator, "jwksRefetchInterval", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(validator, "maxCachedTokens", 100);
+        ReflectionTestUtils.invokeMethod(validator, "initTokenCache");
+        ReflectionTestUtils.invokeMethod(validator, "initDecoder");
+        return validator;
+    }
+
+    private static String token(RSAKey signingKey) throws Exception {
+        return token(signingKey, ISSUER);
+    }
+
+    private static String token(RSAKey signingKey, String issuer) throws Exception {
+        Instant now = Instant.now();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer(issuer)
+                .subject("usr_1")
+                .audience("test-client-id")
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plus(Duration.ofHours(1))))
+                .build();
+        SignedJWT jwt = new SignedJWT(
+                new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(signingKey.getKeyID()).build(), claims);
+        jwt.sign(new RSASSASigner(signingKey));
+        return jwt.serialize();
+    }
+
+    private static String logoutToken(RSAKey signingKey, String jti, boolean logoutEvent) throws Exception {
+        Instant now = Instant.now();
+        JWTClaimsSet.Builder claims = new JWTClaimsSet.Builder()
+                .issuer(ISSUER)
+                .audience("test-client-id")
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plus(Duration.ofMinutes(2))))
+                .jwtID(jti)
+                .claim("sid", "sid_1");
+        if (logoutEvent) {
+            claims.claim("events", Map.of("http://schemas.openid.net/event/backchannel-logout", Map.of()));
+        }
+        SignedJWT jwt = new SignedJWT(
+                new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(signingKey.getKeyID()).build(), claims.build());
+        jwt.sign(new RSASSASigner(signingKey));
+        return jwt.serialize();
+    }
+
+    /**
+     * Stand-in for the provider's JWKS endpoint, counting the requests it serves
+     */
+    private static final class JwksServer {
+
+        private final HttpServer server;
+
+        private final AtomicInteger requests = new AtomicInteger();
+
+        private volatile String body;
+
+        private volatile boolean failing;
+
+        JwksServer() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/keys", exchange -> {
+                requests.incrementAndGet();
+                byte[] response = failing ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(failing ? 503 : 200, response.length == 0 ? -1 : response.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(response);
+                }
+            });
+            server.start();
+        }
+
+        void publish(RSAKey... keys) {
+            body = new JWKSet(List.<JWK>of(keys)).toPublicJWKSet().toString();
+        }
+
+        void fail() {
+            failing = true;
+        }
+
+        int requests() {
+            return requests.get();
+        }
+
+        String uri() {
+            return "http://127.0.0.1:" + server.getAddress().getPort() + "/keys";
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+    }
+}
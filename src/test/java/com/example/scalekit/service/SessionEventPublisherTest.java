@@ -0,0 +1,180 @@
+package com.example.scalekit.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Stalled and broken event streams must not hold up the scheduler or the other streams
+ */
+class SessionEventPublisherTest {
+
+    private static final Duration SEND_TIMEOUT = Duration.ofMillis(200);
+
+    private final Deque<TestEmitter> emitters = new ArrayDeque<>();
+
+    private final CountDownLatch unstall = new CountDownLatch(1);
+
+    private SessionEventPublisher publisher;
+
+    private OAuth2AuthenticationToken authentication;
+
+    @BeforeEach
+    void setUp() {
+        publisher = new SessionEventPublisher() {
+            @Override
+            SseEmitter createEmitter() {
+                return emitters.poll();
+            }
+        };
+        ReflectionTestUtils.setField(publisher, "authorizedClientService", mock(OAuth2AuthorizedClientService.class));
+        ReflectionTestUtils.setField(publisher, "executor", new SimpleAsyncTaskExecutor("sse-"));
+        ReflectionTestUtils.setField(publisher, "emitterTimeout", Duration.ofMinutes(30));
+        ReflectionTestUtils.setField(publisher, "sendTimeout", SEND_TIMEOUT);
+
+        authentication = new OAuth2AuthenticationToken(
+                new DefaultOAuth2User(Set.of(new SimpleGrantedAuthority("ROLE_USER")), Map.of("sub", "usr_1"), "sub"),
+                Set.of(new SimpleGrantedAuthority("ROLE_USER")), "scalekit");
+    }
+
+    @AfterEach
+    void tearDown() {
+        unstall.countDown();
+    }
+
+    @Test
+    void stalledStreamDoesNotHoldUpTheSchedulerOrOtherStreams() throws Exception {
+        TestEmitter stalled = subscribe(new TestEmitter(unstall, false));
+        TestEmitter healthy = subscribe(new TestEmitter(null, false));
+
+        long startedAt = System.nanoTime();
+        publisher.publishExpiry();
+        assertThat(Duration.ofNanos(System.nanoTime() - startedAt)).isLessThan(SEND_TIMEOUT);
+
+        awaitSends(healthy, 2);
+        awaitSends(stalled, 2);
+        Thread.sleep(SEND_TIMEOUT.toMillis() + 100);
+
+        publisher.publishExpiry();
+        awaitSends(healthy, 3);
+        Thread.sleep(100);
+        assertThat(stalled.sends).hasValue(2);
+    }
+
+    @Test
+    void completesStreamsWhoseSendTimesOut() throws Exception {
+        TestEmitter stalled = subscribe(new TestEmitter(unstall, false));
+
+        publisher.publishExpiry();
+
+        assertThat(stalled.closed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(stalled.error.get()).isInstanceOf(TimeoutException.class);
+    }
+
+    @Test
+    void dropsStreamsWhoseSendFails() throws Exception {
+        TestEmitter broken = subscribe(new TestEmitter(null, true));
+        TestEmitter healthy = subscribe(new TestEmitter(null, false));
+
+        publisher.publishExpiry();
+        awaitSends(broken, 2);
+        awaitSends(healthy, 2);
+        Thread.sleep(100);
+
+        publisher.onTokensRefreshed(new TokensRefreshedEvent("scalekit", "usr_1", Instant.now().plusSeconds(3600)));
+        awaitSends(healthy, 3);
+        Thread.sleep(100);
+        assertThat(broken.sends).hasValue(2);
+        assertThat(broken.closed.getCount()).isZero();
+        assertThat(broken.error.get()).isNull();
+        assertThat(healthy.closed.getCount()).isEqualTo(1);
+    }
+
+    private TestEmitter subscribe(TestEmitter emitter) {
+        emitters.add(emitter);
+        publisher.subscribe(authentication, TokenExpiryInfo.UNKNOWN);
+        assertThat(emitter.sends).hasValue(1);
+        return emitter;
+    }
+
+    private static void awaitSends(TestEmitter emitter, int sends) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (emitter.sends.get() < sends && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(emitter.sends.get()).isGreaterThanOrEqualTo(sends);
+    }
+
+    /**
+     * Emitter that accepts the initial event, then stalls or fails on later ones if asked to,
+     * and records how it was completed
+     */
+    private static final class TestEmitter extends SseEmitter {
+
+        private final AtomicInteger sends = new AtomicInteger();
+
+        private final CountDownLatch stallUntil;
+
+        private final boolean fail;
+
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        TestEmitter(CountDownLatch stallUntil, boolean fail) {
+            this.stallUntil = stallUntil;
+            this.fail = fail;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (sends.incrementAndGet() == 1) {
+                return;
+            }
+            if (fail) {
+                throw new IOException("Broken pipe");
+            }
+            if (stallUntil != null) {
+                try {
+                    stallUntil.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void complete() {
+            closed.countDown();
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            error.set(ex);
+            closed.countDown();
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.example.scalekit.service;
+
+import com.example.scalekit.resilience.ScalekitCallGuard;
+import com.example.scalekit.resilience.ScalekitCallGuard.OperationGroup;
+import com.example.scalekit.service.TokenRefreshCoordinator.RefreshedTokens;
+import com.example.scalekit.store.InMemoryRefreshLock;
+import com.example.scalekit.store.JdbcRefreshLock;
+import com.example.scalekit.store.RefreshLock;
+import com.scalekit.ScalekitClient;
+import com.scalekit.internal.http.AuthenticationResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.session.SessionDestroyedEvent;
+import org.springframework.security.oauth2.client.InMemoryOAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.InMemoryClientRegistrationRepository;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Single-flight refresh under concurrent callers, refreshes racing on two nodes, and which
+ * principals the background refresh keeps track of
+ */
+class TokenRefreshCoordinatorTest {
+
+    private static final String REGISTRATION_ID = "scalekit";
+
+    private static final int CALLERS = 16;
+
+    private ClientRegistration registration;
+
+    private InMemoryOAuth2AuthorizedClientService authorizedClientService;
+
+    private ScalekitClient scalekitClient;
+
+    private ScalekitCallGuard callGuard;
+
+    private LocalAccessTokenValidator accessTokenValidator;
+
+    private TokenRefreshCoordinator coordinator;
+
+    private OAuth2AuthenticationToken authentication;
+
+    private ExecutorService callerPool;
+
+    @BeforeEach
+    void setUp() {
+        registration = ClientRegistration.withRegistrationId(REGISTRATION_ID)
+                .clientId("test-client-id")
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .redirectUri("{baseUrl}/auth/callback")
+                .authorizationUri("https://test.scalekit.dev/oauth/authorize")
+                .tokenUri("https://test.scalekit.dev/oauth/token")
+                .scope("openid", "offline_access")
+                .build();
+        authorizedClientService = new InMemoryOAuth2AuthorizedClientService(
+                new InMemoryClientRegistrationRepository(registration));
+        authentication = new OAuth2AuthenticationToken(
+                new DefaultOAuth2User(Set.of(new SimpleGrantedAuthority("ROLE_USER")), Map.of("sub", "usr_1"), "sub"),
+                Set.of(new SimpleGrantedAuthority("ROLE_USER")), REGISTRATION_ID);
+        saveTokens("access-1", "refresh-1", Instant.now().plus(Duration.ofMinutes(1)));
+
+        scalekitClient = mock(ScalekitClient.class, RETURNS_DEEP_STUBS);
+        callGuard = mock(ScalekitCallGuard.class);
+        when(callGuard.call(eq(OperationGroup.AUTH), anyString(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(2).get());
+        accessTokenValidator = mock(LocalAccessTokenValidator.class);
+        when(accessTokenValidator.validate(anyString()))
+                .thenReturn(Map.of("exp", Instant.now().plus(Duration.ofHours(1)).getEpochSecond()));
+
+        coordinator = coordinator(new InMemoryRefreshLock());
+
+        callerPool = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        callerPool.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShareOneUpstreamRefresh() throws Exception {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        CountDownLatch releaseUpstream = new CountDownLatch(1);
+        AuthenticationResponse response = response("access-2", "refresh-2");
+        when(scalekitClient.authentication().refreshAccessToken(anyString())).thenAnswer(invocation -> {
+            upstreamCalls.incrementAndGet();
+            // Hold the refresh in flight until every caller has asked for one
+            releaseUpstream.await(10, TimeUnit.SECONDS);
+            return response;
+        });
+
+        CyclicBarrier start = new CyclicBarrier(CALLERS);
+        List<Future<CompletableFuture<RefreshedTokens>>> calls = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            calls.add(callerPool.submit(() -> {
+                start.await(10, TimeUnit.SECONDS);
+                return coordinator.refresh(authentication, REGISTRATION_ID);
+            }));
+        }
+        List<CompletableFuture<RefreshedTokens>> refreshes = new ArrayList<>();
+        for (Future<CompletableFuture<RefreshedTokens>> call : calls) {
+            refreshes.add(call.get(10, TimeUnit.SECONDS));
+        }
+        releaseUpstream.countDown();
+
+        RefreshedTokens first = refreshes.get(0).get(10, TimeUnit.SECONDS);
+        for (CompletableFuture<RefreshedTokens> refresh : refreshes) {
+            assertThat(refresh.get(10, TimeUnit.SECONDS)).isSameAs(first);
+        }
+        assertThat(upstreamCalls).hasValue(1);
+        verify(scalekitClient.authentication()).refreshAccessToken("refresh-1");
+        assertThat(storedClient().getAccessToken().getTokenValue()).isEqualTo("access-2");
+        assertThat(storedClient().getRefreshToken().getTokenValue()).isEqualTo("refresh-2");
+    }
+
+    @Test
+    void nextRefreshPresentsTheRotatedRefreshToken() throws Exception {
+        AuthenticationResponse firstResponse = response("access-2", "refresh-2");
+        AuthenticationResponse secondResponse = response("access-3", "refresh-3");
+        when(scalekitClient.authentication().refreshAccessToken("refresh-1")).thenReturn(firstResponse);
+        when(scalekitClient.authentication().refreshAccessToken("refresh-2")).thenReturn(secondResponse);
+
+        coordinator.refresh(authentication, REGISTRATION_ID).get(10, TimeUnit.SECONDS);
+        coordinator.refresh(authentication, REGISTRATION_ID).get(10, TimeUnit.SECONDS);
+
+        assertThat(storedClient().getRefreshToken().getTokenValue()).isEqualTo("refresh-3");
+    }
+
+    @Test
+    void refreshesSignedInPrincipalAheadOfExpiry() {
+        AuthenticationResponse response = response("access-2", "refresh-2");
+        when(scalekitClient.authentication().refreshAccessToken(anyString())).thenReturn(response);
+        coordinator.onAuthenticationSuccess(new AuthenticationSuccessEvent(authentication));
+
+        coordinator.refreshExpiringTokens();
+
+        verify(scalekitClient.authentication(), timeout(5000)).refreshAccessToken("refresh-1");
+    }
+
+    @Test
+    void stopsRefreshingWhenTheSessionIsDestroyed() {
+        coordinator.onAuthenticationSuccess(new AuthenticationSuccessEvent(authentication));
+
+        coordinator.onSessionDestroyed(sessionDestroyed(new SecurityContextImpl(authentication)));
+        coordinator.refreshExpiringTokens();
+
+        verify(scalekitClient.authentication(), after(500).never()).refreshAccessToken(anyString());
+    }
+
+    @Test
+    void stopsRefreshingIdlePrincipals() throws Exception {
+        ReflectionTestUtils.setField(coordinator, "sessionTimeout", Duration.ofMillis(1));
+        coordinator.onAuthenticationSuccess(new AuthenticationSuccessEvent(authentication));
+        Thread.sleep(20);
+
+        coordinator.refreshExpiringTokens();
+
+        verify(scalekitClient.authentication(), after(500).never()).refreshAccessToken(anyString());
+    }
+
+    @Test
+    void nodesSharingAStoreNeverPresentARotatedRefreshToken() throws Exception {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema/refresh-lock-jdbc.sql")
+                .build();
+        try {
+            TokenRefreshCoordinator node1 = coordinator(jdbcRefreshLock(database));
+            TokenRefreshCoordinator node2 = coordinator(jdbcRefreshLock(database));
+            AuthenticationResponse firstResponse = response("access-2", "refresh-2");
+            AuthenticationResponse secondResponse = response("access-3", "refresh-3");
+            when(scalekitClient.authentication().refreshAccessToken("refresh-1")).thenAnswer(invocation -> {
+                // Keep the first refresh in flight while the other node asks for one
+                Thread.sleep(200);
+                return firstResponse;
+            });
+            when(scalekitClient.authentication().refreshAccessToken("refresh-2")).thenReturn(secondResponse);
+
+            CompletableFuture<RefreshedTokens> first = node1.refresh(authentication, REGISTRATION_ID);
+            CompletableFuture<RefreshedTokens> second = node2.refresh(authentication, REGISTRATION_ID);
+            first.get(10, TimeUnit.SECONDS);
+            second.get(10, TimeUnit.SECONDS);
+
+            verify(scalekitClient.authentication(), times(1)).refreshAccessToken("refresh-1");
+            verify(scalekitClient.authentication(), times(1)).refreshAccessToken("refresh-2");
+            assertThat(storedClient().getRefreshToken().getTokenValue()).isEqualTo("refresh-3");
+        } finally {
+            database.shutdown();
+        }
+    }
+
+    private TokenRefreshCoordinator coordinator(RefreshLock refreshLock) {
+        TokenRefreshCoordinator coordinator = new TokenRefreshCoordinator();
+        ReflectionTestUtils.setField(coordinator, "authorizedClientService", authorizedClientService);
+        ReflectionTestUtils.setField(coordinator, "scalekitClient", scalekitClient);
+        ReflectionTestUtils.setField(coordinator, "accessTokenValidator", accessTokenValidator);
+        ReflectionTestUtils.setField(coordinator, "callGuard", callGuard);
+        ReflectionTestUtils.setField(coordinator, "refreshLock", refreshLock);
+        ReflectionTestUtils.setField(coordinator, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(coordinator, "eventPublisher", mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(coordinator, "executor", new SimpleAsyncTaskExecutor("refresh-"));
+        ReflectionTestUtils.setField(coordinator, "proactive", true);
+        ReflectionTestUtils.setField(coordinator, "refreshAhead", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(coordinator, "defaultLifetime", Duration.ofHours(1));
+        ReflectionTestUtils.setField(coordinator, "maxTrackedPrincipals", 100L);
+        ReflectionTestUtils.setField(coordinator, "sessionTimeout", Duration.ofMinutes(30));
+        ReflectionTestUtils.invokeMethod(coordinator, "initTracking");
+        return coordinator;
+    }
+
+    private static JdbcRefreshLock jdbcRefreshLock(EmbeddedDatabase database) {
+        JdbcRefreshLock refreshLock = new JdbcRefreshLock();
+        ReflectionTestUtils.setField(refreshLock, "jdbcTemplate", new JdbcTemplate(database));
+        ReflectionTestUtils.setField(refreshLock, "lease", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(refreshLock, "maxWait", Duration.ofSeconds(5));
+        return refreshLock;
+    }
+
+    private void saveTokens(String accessToken, String refreshToken, Instant expiresAt) {
+        Instant issuedAt = Instant.now();
+        authorizedClientService.saveAuthorizedClient(new OAuth2AuthorizedClient(registration, "usr_1",
+                new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, accessToken, issuedAt, expiresAt),
+                new OAuth2RefreshToken(refreshToken, issuedAt)), authentication);
+    }
+
+    private OAuth2AuthorizedClient storedClient() {
+        return authorizedClientService.loadAuthorizedClient(REGISTRATION_ID, "usr_1");
+    }
+
+    private static AuthenticationResponse response(String accessToken, String refreshToken) {
+        AuthenticationResponse response = mock(AuthenticationResponse.class);
+        when(response.getAccessToken()).thenReturn(accessToken);
+        when(response.getRefreshToken()).thenReturn(refreshToken);
+        return response;
+    }
+
+    private static SessionDestroyedEvent sessionDestroyed(SecurityContext context) {
+        return new SessionDestroyedEvent("session-1") {
+            @Override
+            public List<SecurityContext> getSecurityContexts() {
+                return List.of(context);
+            }
+
+            @Override
+            public String getId() {
+                return "session-1";
+            }
+        };
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.scalekit.service;
+
+import com.example.scalekit.resilience.ScalekitUnavailableException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scalekit.grpc.scalekit.v1.users.User;
+import com.scalekit.grpc.scalekit.v1.users.UserProfile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class UserExportServiceTest {
+
+    private UserService userService;
+
+    private UserExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        userService = mock(UserService.class);
+        exportService = new UserExportService();
+        ReflectionTestUtils.setField(exportService, "userService", userService);
+        ReflectionTestUtils.setField(exportService, "objectMapper", new ObjectMapper().findAndRegisterModules());
+    }
+
+    @Test
+    void neutralizesFormulaCellsInCsv() throws Exception {
+        pages(List.of(user("usr_1", "=HYPERLINK(\"http://evil\")", "+1", "@SUM(A1)")));
+
+        String csv = export(UserExportService.Format.CSV, 100);
+
+        assertThat(csv.lines()).containsExactly(
+                "id,email,name,firstName,lastName,createTime",
+                "usr_1,\"'=HYPERLINK(\"\"http://evil\"\")\",'+1 @SUM(A1),'+1,'@SUM(A1),");
+    }
+
+    @Test
+    void endsTheStreamWithAnErrorLineWhenAPageFails() throws Exception {
+        doAnswer(invocation -> {
+            invocation.<Consumer<List<User>>>getArgument(1).accept(List.of(user("usr_1", "a@example.com", "A", "B")));
+            throw new ScalekitUnavailableException("Scalekit user-management calls are failing");
+        }).when(userService).forEachOrganizationUsersPage(anyInt(), any());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThatThrownBy(() -> exportService.export(UserExportService.Format.NDJSON, 100, out))
+                .isInstanceOf(ScalekitUnavailableException.class);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(1)).isEqualTo("{\"error\":\"Export incomplete: failed after 1 users\"}");
+    }
+
+    @Test
+    void clampsThePageSize() throws Exception {
+        pages(List.of());
+
+        export(UserExportService.Format.NDJSON, 100_000);
+
+        verify(userService).forEachOrganizationUsersPage(eq(100), any());
+    }
+
+    private void pages(List<User> users) {
+        doAnswer(invocation -> {
+            invocation.<Consumer<List<User>>>getArgument(1).accept(users);
+            return null;
+        }).when(userService).forEachOrganizationUsersPage(anyInt(), any());
+    }
+
+    private String export(UserExportService.Format format, int pageSize) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(format, pageSize, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static User user(String id, String email, String firstName, String lastName) {
+        return User.newBuilder()
+                .setId(id)
+                .setEmail(email)
+                .setUserProfile(UserProfile.newBuilder().setFirstName(firstName).setLastName(lastName))
+                .build();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.scalekit.service;
+
+import com.example.scalekit.resilience.ScalekitUnavailableException;
+import com.example.scalekit.service.UserImportService.ImportReport;
+import com.example.scalekit.service.UserImportService.RowStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scalekit.grpc.scalekit.v1.users.CreateUser;
+import com.scalekit.grpc.scalekit.v1.users.CreateUserAndMembershipResponse;
+import com.scalekit.grpc.scalekit.v1.users.User;
+import io.grpc.Status;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserImportServiceTest {
+
+    private UserService userService;
+
+    private UserImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        userService = mock(UserService.class);
+        importService = new UserImportService();
+        ReflectionTestUtils.setField(importService, "userService", userService);
+        ReflectionTestUtils.setField(importService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(importService, "executor", new SimpleAsyncTaskExecutor("import-"));
+        ReflectionTestUtils.setField(importService, "concurrency", 2);
+        ReflectionTestUtils.setField(importService, "requestsPerSecond", 1000.0);
+        ReflectionTestUtils.setField(importService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(importService, "initialBackoff", Duration.ofMillis(1));
+    }
+
+    @Test
+    void doesNotRetryACreateThatTimedOut() throws Exception {
+        when(userService.createUserAndMembership(any(CreateUser.class), anyBoolean()))
+                .thenThrow(new ScalekitUnavailableException("Scalekit call create-user timed out", new TimeoutException()));
+
+        ImportReport report = importCsv("email\nalice@example.com\n");
+
+        assertThat(report.unknown()).isEqualTo(1);
+        assertThat(report.rows().get(0).status()).isEqualTo(RowStatus.UNKNOWN);
+        verify(userService, times(1)).createUserAndMembership(any(CreateUser.class), anyBoolean());
+    }
+
+    @Test
+    void retriesACreateThatNeverReachedScalekit() throws Exception {
+        when(userService.createUserAndMembership(any(CreateUser.class), anyBoolean()))
+                .thenThrow(new ScalekitUnavailableException("Too many concurrent Scalekit user-management calls"))
+                .thenReturn(created("usr_1"));
+
+        ImportReport report = importCsv("email\nalice@example.com\n");
+
+        assertThat(report.created()).isEqualTo(1);
+        assertThat(report.rows().get(0).attempts()).isEqualTo(2);
+    }
+
+    @Test
+    void reportsAlreadyExistsOnRetryAsUnknown() throws Exception {
+        when(userService.createUserAndMembership(any(CreateUser.class), anyBoolean()))
+                .thenThrow(Status.UNAVAILABLE.asRuntimeException())
+                .thenThrow(Status.ALREADY_EXISTS.asRuntimeException());
+
+        ImportReport report = importCsv("email\nalice@example.com\n");
+
+        assertThat(report.rows().get(0).status()).isEqualTo(RowStatus.UNKNOWN);
+    }
+
+    @Test
+    void reportsMalformedCsvRowsAndImportsTheRest() throws Exception {
+        when(userService.createUserAndMembership(any(CreateUser.class), anyBoolean())).thenReturn(created("usr_2"));
+
+        ImportReport report = importCsv("email,name\n\"alice@example.com,Alice\nbob@example.com,Bob\n");
+
+        assertThat(report.total()).isEqualTo(2);
+        assertThat(report.rows().get(0).status()).isEqualTo(RowStatus.FAILED);
+        assertThat(report.rows().get(1).status()).isEqualTo(RowStatus.CREATED);
+    }
+
+    @Test
+    void stopsAtMalformedJsonAndReportsIt() throws Exception {
+        when(userService.createUserAndMembership(any(CreateUser.class), anyBoolean())).thenReturn(created("usr_1"));
+
+        ImportReport report = importJson("[{\"email\":\"alice@example.com\"}, {\"email\": ]");
+
+        assertThat(report.created()).isEqualTo(1);
+        assertThat(report.failed()).isEqualTo(1);
+        assertThat(report.rows().get(1).error()).startsWith("Malformed JSON");
+    }
+
+    @Test
+    void rejectsUploadsWithoutTheExpectedShape() {
+        assertThatThrownBy(() -> importCsv("name\nAlice\n"))
+                .isInstanceOf(UserImportService.MalformedImportException.class);
+        assertThatThrownBy(() -> importJson("{\"email\":\"alice@example.com\"}"))
+                .isInstanceOf(UserImportService.MalformedImportException.class);
+    }
+
+    private ImportReport importCsv(String content) throws Exception {
+        return importService.importUsers(stream(content), UserImportService.Format.CSV, false);
+    }
+
+    private ImportReport importJson(String content) throws Exception {
+        return importService.importUsers(stream(content), UserImportService.Format.JSON, false);
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static CreateUserAndMembershipResponse created(String userId) {
+        return CreateUserAndMembershipResponse.newBuilder()
+                .setUser(User.newBuilder().setId(userId))
+                .build();
+    }
+}
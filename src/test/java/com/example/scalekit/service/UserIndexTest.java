@@ -0,0 +1,62 @@
+package com.example.scalekit.service;
+
+import com.scalekit.grpc.scalekit.v1.users.GetUserResponse;
+import com.scalekit.grpc.scalekit.v1.users.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserIndexTest {
+
+    private UserService userService;
+
+    private AsyncTaskExecutor executor;
+
+    private UserIndex userIndex;
+
+    @BeforeEach
+    void setUp() {
+        userService = mock(UserService.class);
+        executor = mock(AsyncTaskExecutor.class);
+        userIndex = new UserIndex();
+        ReflectionTestUtils.setField(userIndex, "userService", userService);
+        ReflectionTestUtils.setField(userIndex, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(userIndex, "executor", executor);
+        ReflectionTestUtils.setField(userIndex, "enabled", true);
+        ReflectionTestUtils.setField(userIndex, "pageSize", 100);
+    }
+
+    @Test
+    void reindexesUsersAfterMembershipWrites() {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(executor).execute(any(Runnable.class));
+        when(userService.getUser("usr_1")).thenReturn(GetUserResponse.newBuilder()
+                .setUser(User.newBuilder().setId("usr_1").setEmail("alice@example.com"))
+                .build());
+
+        userIndex.onUserChanged(UserChangedEvent.changed("usr_1", null));
+
+        assertThat(userIndex.search("alice", "", 10).users()).hasSize(1);
+    }
+
+    @Test
+    void fullExecutorDoesNotFailTheWrite() {
+        doThrow(new TaskRejectedException("Executor full")).when(executor).execute(any(Runnable.class));
+
+        assertThatCode(() -> userIndex.onUserChanged(UserChangedEvent.changed("usr_1", null)))
+                .doesNotThrowAnyException();
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.scalekit.service;
+
+import com.example.scalekit.resilience.ScalekitUnavailableException;
+import com.scalekit.grpc.scalekit.v1.users.GetUserResponse;
+import com.scalekit.grpc.scalekit.v1.users.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserServiceTest {
+
+    private final Map<String, AtomicInteger> lookups = new ConcurrentHashMap<>();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private UserCache userCache;
+
+    private ThreadPoolTaskExecutor executor;
+
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        userCache = mock(UserCache.class);
+        when(userCache.getUser(anyString(), any())).thenAnswer(invocation -> {
+            String userId = invocation.getArgument(0);
+            lookups.computeIfAbsent(userId, id -> new AtomicInteger()).incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            return GetUserResponse.newBuilder().setUser(User.newBuilder().setId(userId)).build();
+        });
+
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.initialize();
+
+        userService = new UserService();
+        ReflectionTestUtils.setField(userService, "userCache", userCache);
+        ReflectionTestUtils.setField(userService, "executor", executor);
+        ReflectionTestUtils.setField(userService, "batchConcurrency", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void fetchesEachUserOnceInTheOrderGiven() {
+        Map<String, GetUserResponse> users = userService.getUsers(
+                Arrays.asList("usr_2", "usr_1", "usr_2", "", null, "usr_3", "usr_1"));
+
+        assertThat(users).containsOnlyKeys("usr_2", "usr_1", "usr_3");
+        assertThat(users.keySet()).containsExactly("usr_2", "usr_1", "usr_3");
+        assertThat(lookups).containsOnlyKeys("usr_2", "usr_1", "usr_3");
+        assertThat(lookups.values()).allSatisfy(count -> assertThat(count.get()).isEqualTo(1));
+    }
+
+    @Test
+    void keepsAtMostTheConfiguredLookupsInFlight() {
+        Map<String, GetUserResponse> users = userService.getUsers(
+                List.of("usr_1", "usr_2", "usr_3", "usr_4", "usr_5", "usr_6"));
+
+        assertThat(users).hasSize(6);
+        assertThat(maxInFlight.get()).isEqualTo(2);
+    }
+
+    @Test
+    void skipsTheRestOnceScalekitIsUnavailable() {
+        when(userCache.getUser(anyString(), any())).thenThrow(new ScalekitUnavailableException("Circuit open"));
+
+        assertThat(userService.getUsers(List.of("usr_1", "usr_2", "usr_3", "usr_4"))).isEmpty();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.scalekit.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Two nodes sharing the lock table of an in-memory H2 database
+ */
+class JdbcRefreshLockTest {
+
+    private EmbeddedDatabase database;
+
+    private JdbcRefreshLock node1;
+
+    private JdbcRefreshLock node2;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema/refresh-lock-jdbc.sql")
+                .build();
+        node1 = lock(Duration.ofSeconds(30));
+        node2 = lock(Duration.ofSeconds(30));
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void onlyOneNodeHoldsThePrincipalsLock() {
+        try (RefreshLock.Lease lease = node1.acquire("scalekit", "usr_1")) {
+            assertThatThrownBy(() -> node2.acquire("scalekit", "usr_1"))
+                    .isInstanceOf(IllegalStateException.class);
+            // Other principals are not affected
+            node2.acquire("scalekit", "usr_2").close();
+        }
+
+        node2.acquire("scalekit", "usr_1").close();
+    }
+
+    @Test
+    void waitingNodeTakesTheLockOnceItIsReleased() throws Exception {
+        RefreshLock.Lease lease = node1.acquire("scalekit", "usr_1");
+        Thread release = new Thread(() -> {
+            sleep(150);
+            lease.close();
+        });
+        release.start();
+
+        try (RefreshLock.Lease next = node2.acquire("scalekit", "usr_1")) {
+            assertThat(owners()).isEqualTo(1);
+        }
+        release.join();
+        assertThat(owners()).isZero();
+    }
+
+    @Test
+    void expiredLeaseIsTakenOverAndCannotReleaseTheNewOwner() {
+        JdbcRefreshLock crashedNode = lock(Duration.ofMillis(50));
+        RefreshLock.Lease staleLease = crashedNode.acquire("scalekit", "usr_1");
+        sleep(100);
+
+        try (RefreshLock.Lease lease = node1.acquire("scalekit", "usr_1")) {
+            staleLease.close();
+
+            assertThatThrownBy(() -> node2.acquire("scalekit", "usr_1"))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    private JdbcRefreshLock lock(Duration lease) {
+        JdbcRefreshLock lock = new JdbcRefreshLock();
+        ReflectionTestUtils.setField(lock, "jdbcTemplate", new JdbcTemplate(database));
+        ReflectionTestUtils.setField(lock, "lease", lease);
+        ReflectionTestUtils.setField(lock, "maxWait", Duration.ofMillis(500));
+        return lock;
+    }
+
+    private int owners() {
+        return new JdbcTemplate(database).queryForObject("SELECT COUNT(*) FROM scalekit_refresh_lock", Integer.class);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
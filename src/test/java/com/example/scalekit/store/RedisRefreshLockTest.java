@@ -0,0 +1,97 @@
+package com.example.scalekit.store;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Two nodes sharing a stand-in for Redis that implements SET NX PX and the owner-checked
+ * delete script
+ */
+class RedisRefreshLockTest {
+
+    private final Map<String, Entry> keys = new ConcurrentHashMap<>();
+
+    private RedisRefreshLock node1;
+
+    private RedisRefreshLock node2;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        when(values.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenAnswer(invocation -> {
+            Entry entry = new Entry(invocation.getArgument(1), Instant.now().plus(invocation.<Duration>getArgument(2)));
+            Entry current = keys.compute(invocation.getArgument(0),
+                    (key, existing) -> existing == null || existing.expired() ? entry : existing);
+            return current == entry;
+        });
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any())).thenAnswer(invocation -> {
+            String key = invocation.<List<String>>getArgument(1).get(0);
+            String owner = invocation.getArgument(2);
+            return keys.computeIfPresent(key, (k, entry) -> entry.owner().equals(owner) ? null : entry) == null ? 1L : 0L;
+        });
+
+        node1 = lock(redisTemplate);
+        node2 = lock(redisTemplate);
+    }
+
+    @Test
+    void onlyOneNodeHoldsThePrincipalsLock() {
+        try (RefreshLock.Lease lease = node1.acquire("scalekit", "usr_1")) {
+            assertThat(keys).containsKey("scalekit:refresh-lock:scalekit:usr_1");
+            assertThatThrownBy(() -> node2.acquire("scalekit", "usr_1"))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+
+        assertThat(keys).isEmpty();
+        node2.acquire("scalekit", "usr_1").close();
+    }
+
+    @Test
+    void expiredLeaseCannotReleaseTheNewOwner() throws Exception {
+        ReflectionTestUtils.setField(node1, "lease", Duration.ofMillis(50));
+        RefreshLock.Lease staleLease = node1.acquire("scalekit", "usr_1");
+        Thread.sleep(100);
+
+        try (RefreshLock.Lease lease = node2.acquire("scalekit", "usr_1")) {
+            staleLease.close();
+
+            assertThat(keys).containsKey("scalekit:refresh-lock:scalekit:usr_1");
+        }
+    }
+
+    private static RedisRefreshLock lock(StringRedisTemplate redisTemplate) {
+        RedisRefreshLock lock = new RedisRefreshLock();
+        ReflectionTestUtils.setField(lock, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(lock, "lease", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(lock, "maxWait", Duration.ofMillis(300));
+        return lock;
+    }
+
+    private record Entry(String owner, Instant expiresAt) {
+
+        boolean expired() {
+            return !expiresAt.isAfter(Instant.now());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.scalekit.view;
+
+import com.scalekit.grpc.scalekit.v1.users.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.IContext;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FragmentCacheTest {
+
+    private ITemplateEngine templateEngine;
+
+    private FragmentCache fragmentCache;
+
+    @BeforeEach
+    void setUp() {
+        templateEngine = mock(ITemplateEngine.class);
+        when(templateEngine.process(eq("fragments/user-row"), anySet(), any(IContext.class)))
+                .thenAnswer(invocation -> ((User) invocation.<IContext>getArgument(2).getVariable("user")).getEmail());
+
+        fragmentCache = new FragmentCache();
+        ReflectionTestUtils.setField(fragmentCache, "templateEngine", templateEngine);
+        ReflectionTestUtils.setField(fragmentCache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(fragmentCache, "templateCache", true);
+        ReflectionTestUtils.setField(fragmentCache, "enabled", true);
+        ReflectionTestUtils.setField(fragmentCache, "maxEntries", 100L);
+        ReflectionTestUtils.setField(fragmentCache, "idleTimeout", Duration.ofMinutes(30));
+        ReflectionTestUtils.invokeMethod(fragmentCache, "initCache");
+    }
+
+    @Test
+    void servesUnchangedUsersFromTheCache() {
+        User user = user("alice@example.com");
+
+        assertThat(render(user)).isEqualTo("alice@example.com");
+        assertThat(render(User.newBuilder(user).build())).isEqualTo("alice@example.com");
+
+        verify(templateEngine, times(1)).process(eq("fragments/user-row"), anySet(), any(IContext.class));
+    }
+
+    @Test
+    void rendersAgainWhenAnyShownFieldChanged() {
+        render(user("alice@example.com"));
+
+        assertThat(render(user("alice@example.org"))).isEqualTo("alice@example.org");
+    }
+
+    private String render(User user) {
+        return fragmentCache.render("fragments/user-row", "row", user.getId(), user, Map.of("user", user));
+    }
+
+    private static User user(String email) {
+        return User.newBuilder().setId("usr_1").setEmail(email).build();
+    }
+}